@@ -0,0 +1,180 @@
+package hu.blackbelt.judo.meta.expression.adapters.asm;
+
+/*-
+ * #%L
+ * JUDO :: Expression :: ASM Adapter Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.expression.TypeName;
+import hu.blackbelt.judo.meta.measure.Unit;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link AsmModelAdapter} lookups on a generated ASM model.
+ *
+ * <p>Lookup arguments are sampled from the model once per trial, each invocation uses the next sample. Lookups of
+ * the default adapter are compared with lookups of a {@link FrozenAsmModelAdapter} (snapshot of the same model).</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsmModelAdapterBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    @Param({"5", "20"})
+    public int packages;
+
+    @Param({"50", "200"})
+    public int classesPerPackage;
+
+    @Param({"20"})
+    public int attributesPerClass;
+
+    @Param({"10"})
+    public int referencesPerClass;
+
+    @Param({"3"})
+    public int inheritanceDepth;
+
+    @Param({"50"})
+    public int measures;
+
+    @Param({"default", "frozen"})
+    public String adapter;
+
+    private AsmModelAdapter modelAdapter;
+
+    private final TypeName[] typeNames = new TypeName[SAMPLES];
+    private final EClass[] classes = new EClass[SAMPLES];
+    private final EClass[] mixins = new EClass[SAMPLES];
+    private final String[] attributeNames = new String[SAMPLES];
+    private final String[] referenceNames = new String[SAMPLES];
+    private final EAttribute[] measuredAttributes = new EAttribute[SAMPLES];
+
+    private int sample;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final AsmModelGenerator generator = new AsmModelGenerator(packages, classesPerPackage, attributesPerClass,
+                referencesPerClass, inheritanceDepth, measures).generate();
+        modelAdapter = "frozen".equals(adapter)
+                ? new FrozenAsmModelAdapter(generator.getAsmModel().getResourceSet(), generator.getMeasureModel().getResourceSet())
+                : new AsmModelAdapter(generator.getAsmModel().getResourceSet(), generator.getMeasureModel().getResourceSet());
+
+        final List<EClass> allClasses = generator.getClasses();
+        final List<EAttribute> allMeasuredAttributes = generator.getMeasuredAttributes();
+        final Random random = new Random(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            final EClass clazz = allClasses.get(random.nextInt(allClasses.size()));
+            classes[i] = clazz;
+            typeNames[i] = modelAdapter.buildTypeName(clazz).get();
+            // every other mixin check is a positive one (class itself is a supertype of the next one in chain)
+            final int index = allClasses.indexOf(clazz);
+            mixins[i] = i % 2 == 0 && index + 1 < allClasses.size()
+                    ? allClasses.get(index + 1)
+                    : allClasses.get(random.nextInt(allClasses.size()));
+            attributeNames[i] = clazz.getEAllAttributes().get(random.nextInt(clazz.getEAllAttributes().size())).getName();
+            referenceNames[i] = clazz.getEAllReferences().get(random.nextInt(clazz.getEAllReferences().size())).getName();
+            measuredAttributes[i] = allMeasuredAttributes.get(random.nextInt(allMeasuredAttributes.size()));
+        }
+    }
+
+    private int next() {
+        sample = (sample + 1) % SAMPLES;
+        return sample;
+    }
+
+    @Benchmark
+    public Optional<? extends EClassifier> getByTypeName() {
+        return modelAdapter.get(typeNames[next()]);
+    }
+
+    @Benchmark
+    public Optional<TypeName> buildTypeName() {
+        return modelAdapter.buildTypeName(classes[next()]);
+    }
+
+    @Benchmark
+    public Optional<? extends EAttribute> getAttribute() {
+        final int i = next();
+        return modelAdapter.getAttribute(classes[i], attributeNames[i]);
+    }
+
+    @Benchmark
+    public Optional<? extends EReference> getReference() {
+        final int i = next();
+        return modelAdapter.getReference(classes[i], referenceNames[i]);
+    }
+
+    @Benchmark
+    public Optional<Unit> getUnit() {
+        return modelAdapter.getUnit(measuredAttributes[next()]);
+    }
+
+    @Benchmark
+    public boolean isMixin() {
+        final int i = next();
+        return modelAdapter.isMixin(classes[i], mixins[i]);
+    }
+
+    @Benchmark
+    public EList<EClass> getContainerTypesOf() {
+        return modelAdapter.getContainerTypesOf(classes[next()]);
+    }
+
+    @Benchmark
+    public EList<EClass> getAllEntityTypes() {
+        return modelAdapter.getAllEntityTypes();
+    }
+
+    @Benchmark
+    public EList<EClass> getAllTransferObjectTypes() {
+        return modelAdapter.getAllTransferObjectTypes();
+    }
+
+    @Benchmark
+    public EList<EClass> getAllMappedTransferObjectTypes() {
+        return modelAdapter.getAllMappedTransferObjectTypes();
+    }
+
+    @Benchmark
+    public EList<EClass> getAllUnmappedTransferObjectTypes() {
+        return modelAdapter.getAllUnmappedTransferObjectTypes();
+    }
+
+    @Benchmark
+    public EList<EEnum> getAllEnums() {
+        return modelAdapter.getAllEnums();
+    }
+
+    @Benchmark
+    public EList<EDataType> getAllPrimitiveTypes() {
+        return modelAdapter.getAllPrimitiveTypes();
+    }
+}
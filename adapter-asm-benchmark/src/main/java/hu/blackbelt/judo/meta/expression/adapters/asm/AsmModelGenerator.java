@@ -0,0 +1,250 @@
+package hu.blackbelt.judo.meta.expression.adapters.asm;
+
+/*-
+ * #%L
+ * JUDO :: Expression :: ASM Adapter Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.asm.runtime.AsmModel;
+import hu.blackbelt.judo.meta.asm.runtime.AsmUtils;
+import hu.blackbelt.judo.meta.measure.BaseMeasure;
+import hu.blackbelt.judo.meta.measure.runtime.MeasureModel;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static hu.blackbelt.judo.meta.asm.runtime.AsmModel.buildAsmModel;
+import static hu.blackbelt.judo.meta.measure.runtime.MeasureModel.buildMeasureModel;
+import static hu.blackbelt.judo.meta.measure.util.builder.MeasureBuilders.newBaseMeasureBuilder;
+import static hu.blackbelt.judo.meta.measure.util.builder.MeasureBuilders.newUnitBuilder;
+import static org.eclipse.emf.ecore.util.builder.EcoreBuilders.*;
+
+/**
+ * Generator of synthetic ASM and measure models for benchmarks.
+ *
+ * <p>The ASM model contains <code>packages</code> entity packages with <code>classesPerPackage</code> classes each.
+ * Classes form inheritance chains of <code>inheritanceDepth</code> length, every fifth class is an (unmapped) transfer
+ * object type. Every third attribute is measured if measures are generated, the first reference of each class is a
+ * containment. Derived attributes and references with JQL getters are added on request
+ * (see {@link #withDerivedFeatures(int, int)}).</p>
+ */
+public class AsmModelGenerator {
+
+    public static final String MEASURE_NAMESPACE = "benchmark::measures";
+
+    private static final String ROOT_PACKAGE_NAME = "benchmark";
+    private static final String NS_URI_PREFIX = "http://blackbelt.hu/judo/expression/benchmark/";
+
+    private final int packages;
+    private final int classesPerPackage;
+    private final int attributesPerClass;
+    private final int referencesPerClass;
+    private final int inheritanceDepth;
+    private final int measures;
+
+    private int derivedAttributesPerClass;
+    private int derivedReferencesPerClass;
+
+    private final List<EClass> classes = new ArrayList<>();
+    private final List<EAttribute> measuredAttributes = new ArrayList<>();
+
+    private AsmModel asmModel;
+    private MeasureModel measureModel;
+
+    public AsmModelGenerator(final int packages, final int classesPerPackage, final int attributesPerClass,
+                             final int referencesPerClass, final int inheritanceDepth, final int measures) {
+        this.packages = packages;
+        this.classesPerPackage = classesPerPackage;
+        this.attributesPerClass = attributesPerClass;
+        this.referencesPerClass = referencesPerClass;
+        this.inheritanceDepth = inheritanceDepth;
+        this.measures = measures;
+    }
+
+    /**
+     * Add derived attributes and references with JQL getter expressions to each class. Derived attributes navigate
+     * to own attributes, derived references navigate own references (and through them to the next package).
+     *
+     * @param derivedAttributesPerClass number of derived attributes per class (requires at least 2 attributes)
+     * @param derivedReferencesPerClass number of derived references per class (requires at least 1 reference)
+     * @return generator
+     */
+    public AsmModelGenerator withDerivedFeatures(final int derivedAttributesPerClass, final int derivedReferencesPerClass) {
+        if (derivedAttributesPerClass > 0 && attributesPerClass < 2) {
+            throw new IllegalArgumentException("Derived attributes require at least 2 attributes per class");
+        }
+        if (derivedReferencesPerClass > 0 && referencesPerClass < 1) {
+            throw new IllegalArgumentException("Derived references require at least 1 reference per class");
+        }
+        this.derivedAttributesPerClass = derivedAttributesPerClass;
+        this.derivedReferencesPerClass = derivedReferencesPerClass;
+        return this;
+    }
+
+    /**
+     * Generate ASM and measure models.
+     *
+     * @return generator (with models)
+     */
+    public AsmModelGenerator generate() {
+        asmModel = buildAsmModel()
+                .uri(URI.createURI("urn:benchmark.judo-meta-asm"))
+                .build();
+        measureModel = buildMeasureModel()
+                .name(asmModel.getName())
+                .build();
+
+        for (int m = 0; m < measures; m++) {
+            final BaseMeasure measure = newBaseMeasureBuilder().withName("Measure" + m).withNamespace(MEASURE_NAMESPACE).build();
+            for (int u = 0; u < 3; u++) {
+                measure.getUnits().add(newUnitBuilder().withName("unit" + m + "_" + u).withSymbol("u" + m + "_" + u)
+                        .withRateDividend(BigDecimal.TEN.pow(u)).withRateDivisor(BigDecimal.ONE).build());
+            }
+            measureModel.addContent(measure);
+        }
+
+        final EPackage root = newEPackageBuilder().withName(ROOT_PACKAGE_NAME).withNsURI(NS_URI_PREFIX + ROOT_PACKAGE_NAME)
+                .withNsPrefix(ROOT_PACKAGE_NAME).build();
+        final EPackage types = newEPackageBuilder().withName("types").withNsURI(NS_URI_PREFIX + "types")
+                .withNsPrefix(ROOT_PACKAGE_NAME + "Types").build();
+        root.getESubpackages().add(types);
+
+        final EDataType stringType = newEDataTypeBuilder().withName("String").withInstanceClassName("java.lang.String").build();
+        final EDataType integerType = newEDataTypeBuilder().withName("Integer").withInstanceClassName("java.lang.Integer").build();
+        final EDataType doubleType = newEDataTypeBuilder().withName("Double").withInstanceClassName("java.lang.Double").build();
+        types.getEClassifiers().addAll(List.of(stringType, integerType, doubleType));
+        for (int m = 0; m < measures; m++) {
+            final EDataType measuredType = newEDataTypeBuilder().withName("Measure" + m + "StoredInUnit" + m + "_0")
+                    .withInstanceClassName("java.lang.Double").build();
+            types.getEClassifiers().add(measuredType);
+            final EAnnotation measured = AsmUtils.getExtensionAnnotationByName(measuredType, "measured", true).get();
+            measured.getDetails().put("measure", getMeasureFqName(m));
+            measured.getDetails().put("unit", "unit" + m + "_0");
+        }
+
+        final List<List<EClass>> classesOfPackages = new ArrayList<>();
+        for (int p = 0; p < packages; p++) {
+            final EPackage ePackage = newEPackageBuilder().withName("pkg" + p).withNsURI(NS_URI_PREFIX + "pkg" + p)
+                    .withNsPrefix(ROOT_PACKAGE_NAME + "Pkg" + p).build();
+            root.getESubpackages().add(ePackage);
+
+            final List<EClass> classesOfPackage = new ArrayList<>();
+            for (int c = 0; c < classesPerPackage; c++) {
+                final EClass clazz = newEClassBuilder().withName("Class" + p + "_" + c).build();
+                if (c % (inheritanceDepth + 1) != 0) {
+                    clazz.getESuperTypes().add(classesOfPackage.get(c - 1));
+                }
+                if (c % 5 != 4) {
+                    AsmUtils.getExtensionAnnotationByName(clazz, "entity", true).get().getDetails().put("value", "true");
+                }
+                for (int a = 0; a < attributesPerClass; a++) {
+                    final EAttribute attribute;
+                    if (a % 3 == 2 && measures > 0) {
+                        final int m = (c + a) % measures;
+                        attribute = newEAttributeBuilder().withName("attribute" + c + "_" + a).withEType(doubleType).build();
+                        final EAnnotation constraints = AsmUtils.getExtensionAnnotationByName(attribute, "constraints", true).get();
+                        constraints.getDetails().put("measure", getMeasureFqName(m));
+                        constraints.getDetails().put("unit", "unit" + m + "_" + (a % 3));
+                        measuredAttributes.add(attribute);
+                    } else {
+                        attribute = newEAttributeBuilder().withName("attribute" + c + "_" + a).withEType(a % 3 == 0 ? stringType : integerType).build();
+                    }
+                    clazz.getEStructuralFeatures().add(attribute);
+                }
+                ePackage.getEClassifiers().add(clazz);
+                classesOfPackage.add(clazz);
+            }
+            classesOfPackages.add(classesOfPackage);
+            classes.addAll(classesOfPackage);
+        }
+
+        for (int p = 0; p < packages; p++) {
+            final List<EClass> targets = classesOfPackages.get((p + 1) % packages);
+            for (int c = 0; c < classesPerPackage; c++) {
+                final EClass clazz = classesOfPackages.get(p).get(c);
+                for (int r = 0; r < referencesPerClass; r++) {
+                    clazz.getEStructuralFeatures().add(newEReferenceBuilder().withName("reference" + c + "_" + r)
+                            .withEType(targets.get((c + r + 1) % classesPerPackage))
+                            .withContainment(r == 0)
+                            .withLowerBound(0).withUpperBound(r % 2 == 0 ? -1 : 1)
+                            .build());
+                }
+            }
+        }
+
+        for (int p = 0; p < packages; p++) {
+            final List<EClass> targets = classesOfPackages.get((p + 1) % packages);
+            for (int c = 0; c < classesPerPackage; c++) {
+                final EClass clazz = classesOfPackages.get(p).get(c);
+                for (int d = 0; d < derivedAttributesPerClass; d++) {
+                    final EAttribute attribute = newEAttributeBuilder().withName("derivedAttribute" + c + "_" + d)
+                            .withEType(d % 2 == 0 ? stringType : integerType).withDerived(true).build();
+                    clazz.getEStructuralFeatures().add(attribute);
+                    addGetter(attribute, d % 2 == 0
+                            ? "self.attribute" + c + "_0 + '-' + self.attribute" + c + "_0"
+                            : "self.attribute" + c + "_1 + " + d);
+                }
+                for (int d = 0; d < derivedReferencesPerClass; d++) {
+                    final int r = d % referencesPerClass;
+                    final EClass target = targets.get((c + r + 1) % classesPerPackage);
+                    final EReference reference = newEReferenceBuilder().withName("derivedReference" + c + "_" + d)
+                            .withEType(target).withDerived(true)
+                            .withLowerBound(0).withUpperBound(r % 2 == 0 ? -1 : 1)
+                            .build();
+                    clazz.getEStructuralFeatures().add(reference);
+                    addGetter(reference, r % 2 == 0
+                            ? "self.reference" + c + "_" + r + "!filter(t | t.attribute" + ((c + r + 1) % classesPerPackage) + "_1 > " + d + ")"
+                            : "self.reference" + c + "_" + r);
+                }
+            }
+        }
+
+        asmModel.addContent(root);
+        return this;
+    }
+
+    public AsmModel getAsmModel() {
+        return asmModel;
+    }
+
+    public MeasureModel getMeasureModel() {
+        return measureModel;
+    }
+
+    public List<EClass> getClasses() {
+        return Collections.unmodifiableList(classes);
+    }
+
+    public List<EAttribute> getMeasuredAttributes() {
+        return Collections.unmodifiableList(measuredAttributes);
+    }
+
+    private static void addGetter(final EStructuralFeature feature, final String expression) {
+        final EAnnotation annotation = AsmUtils.getExtensionAnnotationByName(feature, "expression", true).get();
+        annotation.getDetails().put("getter", expression);
+        annotation.getDetails().put("getter.dialect", "JQL");
+    }
+
+    private static String getMeasureFqName(final int index) {
+        return MEASURE_NAMESPACE.replace("::", ".") + ".Measure" + index;
+    }
+}
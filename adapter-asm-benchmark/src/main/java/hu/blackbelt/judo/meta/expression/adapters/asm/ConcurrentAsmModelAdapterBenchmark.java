@@ -0,0 +1,140 @@
+package hu.blackbelt.judo.meta.expression.adapters.asm;
+
+/*-
+ * #%L
+ * JUDO :: Expression :: ASM Adapter Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.expression.TypeName;
+import hu.blackbelt.judo.meta.measure.Unit;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling benchmark of a {@link ConcurrentAsmModelAdapter} shared by all benchmark threads.
+ *
+ * <p>Each thread runs a mix of lookups (type names, features, units and containers) on its own sample of the
+ * generated model. Use {@link #main(String[])} to run the benchmark with 1, 2, 4, ... threads up to the number of
+ * available processors (JMH command line options are accepted, except thread count).</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentAsmModelAdapterBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    @State(Scope.Benchmark)
+    public static class SharedAdapter {
+
+        @Param({"10"})
+        public int packages;
+
+        @Param({"100"})
+        public int classesPerPackage;
+
+        private AsmModelGenerator generator;
+        private ConcurrentAsmModelAdapter modelAdapter;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            generator = new AsmModelGenerator(packages, classesPerPackage, 20, 10, 3, 50).generate();
+            modelAdapter = new ConcurrentAsmModelAdapter(generator.getAsmModel().getResourceSet(), generator.getMeasureModel().getResourceSet());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Samples {
+
+        private final TypeName[] typeNames = new TypeName[SAMPLES];
+        private final EClass[] classes = new EClass[SAMPLES];
+        private final String[] attributeNames = new String[SAMPLES];
+        private final String[] referenceNames = new String[SAMPLES];
+        private final EAttribute[] measuredAttributes = new EAttribute[SAMPLES];
+
+        private int sample;
+
+        @Setup(Level.Trial)
+        public void setUp(final SharedAdapter shared) {
+            final List<EClass> allClasses = shared.generator.getClasses();
+            final List<EAttribute> allMeasuredAttributes = shared.generator.getMeasuredAttributes();
+            final Random random = new Random(Thread.currentThread().getId());
+            for (int i = 0; i < SAMPLES; i++) {
+                final EClass clazz = allClasses.get(random.nextInt(allClasses.size()));
+                classes[i] = clazz;
+                typeNames[i] = shared.modelAdapter.buildTypeName(clazz).get();
+                attributeNames[i] = clazz.getEAllAttributes().get(random.nextInt(clazz.getEAllAttributes().size())).getName();
+                referenceNames[i] = clazz.getEAllReferences().get(random.nextInt(clazz.getEAllReferences().size())).getName();
+                measuredAttributes[i] = allMeasuredAttributes.get(random.nextInt(allMeasuredAttributes.size()));
+            }
+        }
+
+        private int next() {
+            sample = (sample + 1) % SAMPLES;
+            return sample;
+        }
+    }
+
+    @Benchmark
+    public void lookups(final SharedAdapter shared, final Samples samples, final Blackhole blackhole) {
+        final ConcurrentAsmModelAdapter modelAdapter = shared.modelAdapter;
+        final int i = samples.next();
+        final Optional<? extends EClassifier> type = modelAdapter.get(samples.typeNames[i]);
+        blackhole.consume(type);
+        blackhole.consume(modelAdapter.buildTypeName(samples.classes[i]));
+        blackhole.consume(modelAdapter.getAttribute(samples.classes[i], samples.attributeNames[i]));
+        blackhole.consume(modelAdapter.getReference(samples.classes[i], samples.referenceNames[i]));
+        final Optional<Unit> unit = modelAdapter.getUnit(samples.measuredAttributes[i]);
+        blackhole.consume(unit);
+        final EList<EClass> containers = modelAdapter.getContainerTypesOf(samples.classes[i]);
+        blackhole.consume(containers);
+    }
+
+    public static void main(final String[] args) throws CommandLineOptionException, RunnerException {
+        final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        final int processors = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; ; threads = Math.min(threads * 2, processors)) {
+            final ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions)
+                    .threads(threads);
+            if (commandLineOptions.getIncludes().isEmpty()) {
+                options.include(ConcurrentAsmModelAdapterBenchmark.class.getName());
+            }
+            new Runner(options.build()).run();
+            if (threads == processors) {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package hu.blackbelt.judo.meta.expression.adapters.asm;
+
+/*-
+ * #%L
+ * JUDO :: Expression :: ASM Adapter Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.asm.runtime.AsmModel;
+import hu.blackbelt.judo.meta.expression.adapters.ModelAdapter;
+import hu.blackbelt.judo.meta.measure.BaseMeasure;
+import hu.blackbelt.judo.meta.measure.DurationType;
+import hu.blackbelt.judo.meta.measure.DurationUnit;
+import hu.blackbelt.judo.meta.measure.runtime.MeasureModel;
+import org.eclipse.emf.common.util.URI;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static hu.blackbelt.judo.meta.asm.runtime.AsmModel.buildAsmModel;
+import static hu.blackbelt.judo.meta.measure.runtime.MeasureModel.buildMeasureModel;
+import static hu.blackbelt.judo.meta.measure.util.builder.MeasureBuilders.newBaseMeasureBuilder;
+import static hu.blackbelt.judo.meta.measure.util.builder.MeasureBuilders.newDurationUnitBuilder;
+
+/**
+ * Benchmark of {@link AsmModelAdapter#getBaseDurationRatio(hu.blackbelt.judo.meta.measure.Unit, ModelAdapter.DurationType)}
+ * (precomputed ratios) compared to computing ratios on each call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DurationRatioBenchmark {
+
+    private static final ModelAdapter.DurationType[] TARGET_TYPES = {ModelAdapter.DurationType.SECOND, ModelAdapter.DurationType.DAY};
+
+    private AsmModelAdapter modelAdapter;
+    private DurationUnit[] units;
+
+    private int sample;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final AsmModel asmModel = buildAsmModel()
+                .uri(URI.createURI("urn:benchmark.judo-meta-asm"))
+                .build();
+        final MeasureModel measureModel = buildMeasureModel()
+                .name(asmModel.getName())
+                .build();
+
+        units = new DurationUnit[] {
+                newDurationUnitBuilder().withName("millisecond").withSymbol("ms").withRateDividend(new BigDecimal("0.001")).withRateDivisor(BigDecimal.ONE).withType(DurationType.MILLISECOND).build(),
+                newDurationUnitBuilder().withName("second").withSymbol("s").withRateDividend(BigDecimal.ONE).withRateDivisor(BigDecimal.ONE).withType(DurationType.SECOND).build(),
+                newDurationUnitBuilder().withName("minute").withSymbol("min").withRateDividend(new BigDecimal(60)).withRateDivisor(BigDecimal.ONE).withType(DurationType.MINUTE).build(),
+                newDurationUnitBuilder().withName("hour").withSymbol("h").withRateDividend(new BigDecimal(3600)).withRateDivisor(BigDecimal.ONE).withType(DurationType.HOUR).build(),
+                newDurationUnitBuilder().withName("day").withSymbol("d").withRateDividend(new BigDecimal(86400)).withRateDivisor(BigDecimal.ONE).withType(DurationType.DAY).build(),
+                newDurationUnitBuilder().withName("week").withSymbol("w").withRateDividend(new BigDecimal(604800)).withRateDivisor(BigDecimal.ONE).withType(DurationType.WEEK).build()
+        };
+        final BaseMeasure time = newBaseMeasureBuilder().withName("Time").withNamespace(AsmModelGenerator.MEASURE_NAMESPACE).build();
+        for (final DurationUnit unit : units) {
+            time.getUnits().add(unit);
+        }
+        measureModel.addContent(time);
+
+        modelAdapter = new AsmModelAdapter(asmModel.getResourceSet(), measureModel.getResourceSet());
+    }
+
+    private int next() {
+        sample = (sample + 1) % (units.length * TARGET_TYPES.length);
+        return sample;
+    }
+
+    @Benchmark
+    public ModelAdapter.UnitFraction precomputed() {
+        final int i = next();
+        return modelAdapter.getBaseDurationRatio(units[i / TARGET_TYPES.length], TARGET_TYPES[i % TARGET_TYPES.length]);
+    }
+
+    @Benchmark
+    public ModelAdapter.UnitFraction computed() {
+        final int i = next();
+        return AsmMeasureProvider.computeBaseDurationRatio(units[i / TARGET_TYPES.length], TARGET_TYPES[i % TARGET_TYPES.length]);
+    }
+}
@@ -0,0 +1,85 @@
+package hu.blackbelt.judo.meta.expression.adapters.asm;
+
+/*-
+ * #%L
+ * JUDO :: Expression :: ASM Adapter Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.measure.Measure;
+import hu.blackbelt.judo.meta.measure.Unit;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark of building lookup tables of {@link AsmMeasureProvider} with sequential and parallel traversal of the
+ * measure model (parallel traversal is forced by zero threshold, sequential one by maximum threshold).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeasureTraversalBenchmark {
+
+    @Param({"100", "5000"})
+    public int measures;
+
+    @Param({"sequential", "parallel"})
+    public String traversal;
+
+    private ResourceSet measureResourceSet;
+    private AsmMeasureProvider measureProvider;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final AsmModelGenerator generator = new AsmModelGenerator(0, 0, 0, 0, 1, measures).generate();
+        measureResourceSet = generator.getMeasureModel().getResourceSet();
+        measureProvider = new AsmMeasureProvider(measureResourceSet, "parallel".equals(traversal) ? 0 : Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public void buildIndex() {
+        measureProvider.refresh();
+    }
+
+    /**
+     * Former way of collecting measures and units: one traversal of the measure model per element type.
+     */
+    @Benchmark
+    public int collectMeasuresAndUnits() {
+        final List<Measure> measureList = getMeasureElement(Measure.class).collect(Collectors.toList());
+        final List<Unit> unitList = getMeasureElement(Unit.class).collect(Collectors.toList());
+        return measureList.size() + unitList.size();
+    }
+
+    private <T> Stream<T> getMeasureElement(final Class<T> clazz) {
+        final List<Notifier> measureContents = new ArrayList<>();
+        measureResourceSet.getAllContents().forEachRemaining(measureContents::add);
+        return ("parallel".equals(traversal) ? measureContents.parallelStream() : measureContents.stream())
+                .filter(clazz::isInstance)
+                .map(clazz::cast);
+    }
+}
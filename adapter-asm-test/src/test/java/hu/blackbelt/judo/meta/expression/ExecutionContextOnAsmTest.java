@@ -49,6 +49,7 @@ import org.eclipse.emf.ecore.EDataType;
 import org.eclipse.emf.ecore.EEnum;
 import org.eclipse.emf.ecore.EPackage;
 import org.eclipse.emf.ecore.EReference;
+import org.junit.jupiter.api.BeforeEach;
 
 import hu.blackbelt.judo.meta.asm.runtime.AsmModel;
 import hu.blackbelt.judo.meta.asm.runtime.AsmUtils;
@@ -66,6 +67,7 @@ public class ExecutionContextOnAsmTest {
     public AsmUtils asmUtils;
     public ExpressionModel expressionModel;
 
+    @BeforeEach
     public void setUp() throws Exception {
         asmModel = buildAsmModel()
                 .uri(URI.createURI("urn:asm.judo-meta-asm"))
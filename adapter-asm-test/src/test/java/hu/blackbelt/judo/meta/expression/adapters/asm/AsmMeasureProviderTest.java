@@ -20,14 +20,21 @@ package hu.blackbelt.judo.meta.expression.adapters.asm;
  * #L%
  */
 
+import static hu.blackbelt.judo.meta.measure.util.builder.MeasureBuilders.newBaseMeasureBuilder;
+import static hu.blackbelt.judo.meta.measure.util.builder.MeasureBuilders.newUnitBuilder;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 import org.eclipse.emf.common.notify.Notifier;
@@ -38,6 +45,7 @@ import org.junit.jupiter.api.Test;
 import com.google.common.collect.ImmutableMap;
 
 import hu.blackbelt.judo.meta.expression.ExecutionContextOnAsmTest;
+import hu.blackbelt.judo.meta.expression.adapters.measure.MeasureChangedHandler;
 import hu.blackbelt.judo.meta.expression.adapters.measure.MeasureProvider;
 import hu.blackbelt.judo.meta.measure.Measure;
 import hu.blackbelt.judo.meta.measure.Unit;
@@ -153,11 +161,129 @@ public class AsmMeasureProviderTest extends ExecutionContextOnAsmTest {
         assertFalse(measureProvider.getUnitByNameOrSymbol(Optional.empty(), null).isPresent()); // nothing is defined
     }
 
+    @Test
+    public void testGetMeasureAfterModelChange() {
+        assertFalse(measureProvider.getMeasure("demo::measures", "Temperature").isPresent());
+
+        final Measure temperature = newBaseMeasureBuilder().withName("Temperature").withNamespace("demo::measures").withUnits(
+                newUnitBuilder().withName("kelvin").withSymbol("K").withRateDividend(new BigDecimal(1.0)).withRateDivisor(new BigDecimal(1.0)).build())
+            .build();
+        measureModel.addContent(temperature);
+
+        assertThat(measureProvider.getMeasure("demo::measures", "Temperature"), is(Optional.of(temperature)));
+        assertThat(measureProvider.getUnitByNameOrSymbol(Optional.empty(), "K").map(Unit::getName), is(Optional.of("kelvin")));
+        assertThat(measureProvider.getMeasures().count(), is(8L));
+
+        final Unit celsius = newUnitBuilder().withName("celsius").withSymbol("°C").withRateDividend(new BigDecimal(1.0)).withRateDivisor(new BigDecimal(1.0)).build();
+        temperature.getUnits().add(celsius);
+
+        assertThat(measureProvider.getUnitByNameOrSymbol(Optional.of(temperature), "°C"), is(Optional.of(celsius)));
+        assertThat(measureProvider.getUnitByNameOrSymbol(Optional.empty(), "celsius"), is(Optional.of(celsius)));
+    }
+
     @Test
     public void testGetMeasures() {
         assertThat(measureProvider.getMeasures().count(), is(7L));
     }
 
+    @Test
+    public void testParallelTraversal() {
+        final AsmMeasureProvider parallelMeasureProvider = new AsmMeasureProvider(measureModel.getResourceSet(), 0);
+
+        assertThat(parallelMeasureProvider.getMeasures().collect(Collectors.toSet()), is(measureProvider.getMeasures().collect(Collectors.toSet())));
+        assertThat(parallelMeasureProvider.getUnits().collect(Collectors.toSet()), is(measureProvider.getUnits().collect(Collectors.toSet())));
+        assertThat(parallelMeasureProvider.getMeasure("demo::measures", "Length"), is(getMeasureByName("Length")));
+    }
+
+    @Test
+    public void testGetConversionRate() {
+        final AsmMeasureProvider asmMeasureProvider = new AsmMeasureProvider(measureModel.getResourceSet());
+        final Unit second = getUnitByName("second").get();
+        final Unit hour = getUnitByName("hour").get();
+        final Unit day = getUnitByName("day").get();
+        final Unit metre = getUnitByName("metre").get();
+
+        assertThat(asmMeasureProvider.getConversionRate(hour, day).get().getDividend(), is(BigDecimal.ONE));
+        assertThat(asmMeasureProvider.getConversionRate(hour, day).get().getDivisor(), is(BigDecimal.valueOf(24)));
+        assertThat(asmMeasureProvider.getConversionRate(day, second).get().getDividend(), is(BigDecimal.valueOf(86400)));
+        assertThat(asmMeasureProvider.getConversionRate(day, second).get().getDivisor(), is(BigDecimal.ONE));
+        assertThat(asmMeasureProvider.getConversionRate(second, second).get().getDividend(), is(BigDecimal.ONE));
+        assertFalse(asmMeasureProvider.getConversionRate(second, metre).isPresent());
+
+        // conversion table is refreshed on measure model changes
+        final Unit quarterDay = newUnitBuilder().withName("quarterDay").withRateDividend(new BigDecimal(21600.0)).withRateDivisor(new BigDecimal(1.0)).build();
+        ((Measure) hour.eContainer()).getUnits().add(quarterDay);
+        assertThat(asmMeasureProvider.getConversionRate(day, quarterDay).get().getDividend(), is(BigDecimal.valueOf(4)));
+        assertThat(asmMeasureProvider.getConversionRate(day, quarterDay).get().getDivisor(), is(BigDecimal.ONE));
+    }
+
+    @Test
+    public void testMeasureChangeHandlers() {
+        final List<Object> addedMeasures = new ArrayList<>();
+        final List<Object> removedMeasures = new ArrayList<>();
+        final MeasureChangedHandler measureChangeHandler = new MeasureChangedHandler() {
+            @Override
+            public void measureAdded(final Object measure) {
+                addedMeasures.add(measure);
+            }
+
+            @Override
+            public void measureChanged(final Object measure) {
+            }
+
+            @Override
+            public void measureRemoved(final Object measure) {
+                removedMeasures.add(measure);
+            }
+        };
+        // handlers are added, not replaced
+        measureProvider.setMeasureChangeHandler(measureChangeHandler);
+        measureProvider.setMeasureChangeHandler(measureChangeHandler);
+
+        final Measure temperature = newBaseMeasureBuilder().withName("Temperature").withNamespace("demo::measures").withUnits(
+                newUnitBuilder().withName("kelvin").withSymbol("K").withRateDividend(new BigDecimal(1.0)).withRateDivisor(new BigDecimal(1.0)).build())
+            .build();
+        measureModel.addContent(temperature);
+        assertThat(addedMeasures, is(Arrays.asList(temperature, temperature)));
+
+        measureModel.getResource().getContents().remove(temperature);
+        assertThat(removedMeasures, is(Arrays.asList(temperature, temperature)));
+    }
+
+    @Test
+    public void testGetDoubleRates() {
+        final AsmMeasureProvider asmMeasureProvider = new AsmMeasureProvider(measureModel.getResourceSet());
+        final Unit second = getUnitByName("second").get();
+        final Unit hour = getUnitByName("hour").get();
+        final Unit day = getUnitByName("day").get();
+        final Unit metre = getUnitByName("metre").get();
+
+        assertThat(asmMeasureProvider.getDoubleUnitRate(hour).get().getFactor(), is(3600.0));
+        assertTrue(asmMeasureProvider.getDoubleUnitRate(hour).get().isExact());
+
+        assertThat(asmMeasureProvider.getDoubleConversionRate(day, second).get().getFactor(), is(86400.0));
+        assertTrue(asmMeasureProvider.getDoubleConversionRate(day, second).get().isExact());
+
+        // 1/24 can not be represented as double
+        assertThat(asmMeasureProvider.getDoubleConversionRate(hour, day).get().getFactor(), is(1.0 / 24));
+        assertFalse(asmMeasureProvider.getDoubleConversionRate(hour, day).get().isExact());
+
+        assertFalse(asmMeasureProvider.getDoubleConversionRate(second, metre).isPresent());
+
+        // quotients close to midpoint of two doubles are rounded correctly (not rounded to 34 digits first)
+        final BigDecimal midpoint = new BigDecimal(1.0).add(new BigDecimal(Math.nextUp(1.0))).divide(BigDecimal.valueOf(2));
+        final Unit aboveMidpoint = newUnitBuilder().withName("aboveMidpoint")
+                .withRateDividend(midpoint.multiply(BigDecimal.valueOf(3)).add(new BigDecimal("1E-40"))).withRateDivisor(BigDecimal.valueOf(3)).build();
+        assertThat(asmMeasureProvider.getDoubleUnitRate(aboveMidpoint).get().getFactor(), is(Math.nextUp(1.0)));
+        assertFalse(asmMeasureProvider.getDoubleUnitRate(aboveMidpoint).get().isExact());
+
+        // ties are rounded to even
+        final double odd = Math.nextUp(1.0);
+        final BigDecimal tie = new BigDecimal(odd).add(new BigDecimal(Math.nextUp(odd))).divide(BigDecimal.valueOf(2));
+        final Unit atMidpoint = newUnitBuilder().withName("atMidpoint").withRateDividend(tie.negate()).withRateDivisor(BigDecimal.ONE.negate()).build();
+        assertThat(asmMeasureProvider.getDoubleUnitRate(atMidpoint).get().getFactor(), is(Math.nextUp(odd)));
+    }
+
     private Optional<Measure> getMeasureByName(final String measureName) {
         final Iterable<Notifier> measureContents = measureModel.getResourceSet()::getAllContents;
         return StreamSupport.stream(measureContents.spliterator(), true)
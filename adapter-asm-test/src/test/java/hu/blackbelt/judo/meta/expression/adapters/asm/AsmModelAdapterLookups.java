@@ -0,0 +1,68 @@
+package hu.blackbelt.judo.meta.expression.adapters.asm;
+
+/*-
+ * #%L
+ * JUDO :: Expression :: ASM Adapter Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EReference;
+
+import java.util.ArrayList;
+import java.util.List;
+
+abstract class AsmModelAdapterLookups {
+
+    /**
+     * Run (read-only) queries of model adapter on all classes and data types and collect results to compare adapters.
+     */
+    static List<Object> lookup(final AsmModelAdapter modelAdapter, final List<EClass> classes, final List<EDataType> dataTypes) {
+        final List<Object> results = new ArrayList<>();
+        for (final EClass clazz : classes) {
+            results.add(modelAdapter.buildTypeName(clazz).map(t -> t.getNamespace() + "::" + t.getName()));
+            results.add(modelAdapter.buildTypeName(clazz).flatMap(modelAdapter::get));
+            results.add(new ArrayList<>(modelAdapter.getContainerTypesOf(clazz)));
+            for (final EAttribute attribute : clazz.getEAllAttributes()) {
+                results.add(modelAdapter.getAttribute(clazz, attribute.getName()));
+                results.add(modelAdapter.getUnit(attribute));
+            }
+            for (final EReference reference : clazz.getEAllReferences()) {
+                results.add(modelAdapter.getReference(clazz, reference.getName()));
+            }
+            for (final EClass mixin : classes) {
+                results.add(modelAdapter.isMixin(clazz, mixin));
+            }
+        }
+        for (final EDataType dataType : dataTypes) {
+            results.add(modelAdapter.buildTypeName(dataType).flatMap(modelAdapter::get).map(EClassifier::getName));
+            results.add(modelAdapter.getMeasureOfType(dataType));
+            results.add(modelAdapter.getUnitOfType(dataType));
+        }
+        results.add(new ArrayList<>(modelAdapter.getAllEntityTypes()));
+        results.add(new ArrayList<>(modelAdapter.getAllTransferObjectTypes()));
+        results.add(new ArrayList<>(modelAdapter.getAllMappedTransferObjectTypes()));
+        results.add(new ArrayList<>(modelAdapter.getAllUnmappedTransferObjectTypes()));
+        results.add(new ArrayList<>(modelAdapter.getAllEnums()));
+        results.add(new ArrayList<>(modelAdapter.getAllPrimitiveTypes()));
+        results.add(new ArrayList<>(modelAdapter.getAllMeasures()));
+        return results;
+    }
+}
@@ -27,14 +27,20 @@ import hu.blackbelt.judo.meta.expression.constant.Instance;
 import hu.blackbelt.judo.meta.expression.constant.IntegerConstant;
 import hu.blackbelt.judo.meta.expression.constant.MeasuredDecimal;
 import hu.blackbelt.judo.meta.expression.numeric.NumericAttribute;
+import hu.blackbelt.judo.meta.measure.DurationUnit;
 import hu.blackbelt.judo.meta.measure.Measure;
 import hu.blackbelt.judo.meta.measure.Unit;
+import com.google.common.collect.ImmutableSet;
 import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.util.ECollections;
 import org.eclipse.emf.ecore.*;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.HashSet;
 import java.util.Optional;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -44,12 +50,17 @@ import static hu.blackbelt.judo.meta.expression.numeric.util.builder.NumericBuil
 import static hu.blackbelt.judo.meta.expression.object.util.builder.ObjectBuilders.newObjectVariableReferenceBuilder;
 import static hu.blackbelt.judo.meta.expression.util.builder.ExpressionBuilders.newMeasureNameBuilder;
 import static hu.blackbelt.judo.meta.expression.util.builder.ExpressionBuilders.newTypeNameBuilder;
+import static org.eclipse.emf.ecore.util.builder.EcoreBuilders.newEAttributeBuilder;
 import static org.eclipse.emf.ecore.util.builder.EcoreBuilders.newEClassBuilder;
 import static org.eclipse.emf.ecore.util.builder.EcoreBuilders.newEEnumBuilder;
+import static org.eclipse.emf.ecore.util.builder.EcoreBuilders.newEReferenceBuilder;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class AsmModelAdapterTest extends ExecutionContextOnAsmTest {
@@ -78,6 +89,22 @@ public class AsmModelAdapterTest extends ExecutionContextOnAsmTest {
         //TODO: negtest maaaaybe? (+psm)
     }
 
+    @Test
+    public void testGetTypeNameAfterModelChange() {
+        final EClass invoice = newEClassBuilder().withName("Invoice").build();
+        assertFalse(modelAdapter.buildTypeName(invoice).isPresent());
+
+        final EPackage entities = asmUtils.resolve("demo.entities.Order").get().getEPackage();
+        entities.getEClassifiers().add(invoice);
+        final Optional<TypeName> invoiceTypeName = modelAdapter.buildTypeName(invoice);
+        assertTrue(invoiceTypeName.isPresent());
+        assertThat(invoiceTypeName.get().getName(), is("Invoice"));
+        assertThat(invoiceTypeName.get().getNamespace(), is("demo::entities"));
+
+        entities.getEClassifiers().remove(invoice);
+        assertFalse(modelAdapter.buildTypeName(invoice).isPresent());
+    }
+
     @Test
     public void testGet() {
         //TODO: check if needed
@@ -107,6 +134,23 @@ public class AsmModelAdapterTest extends ExecutionContextOnAsmTest {
         assertFalse(modelAdapter.get(negtest_namespace_TypeName).isPresent());
     }
 
+    @Test
+    public void testGetAfterModelChange() {
+        final TypeName invoiceTypeName = newTypeNameBuilder()
+                .withNamespace("demo::entities")
+                .withName("Invoice")
+                .build();
+        assertFalse(modelAdapter.get(invoiceTypeName).isPresent());
+
+        final EPackage entities = asmUtils.resolve("demo.entities.Order").get().getEPackage();
+        final EClass invoice = newEClassBuilder().withName("Invoice").build();
+        entities.getEClassifiers().add(invoice);
+        assertThat(modelAdapter.get(invoiceTypeName), is(Optional.of(invoice)));
+
+        entities.getEClassifiers().remove(invoice);
+        assertFalse(modelAdapter.get(invoiceTypeName).isPresent());
+    }
+
     @Test
     public void testIsObjectType() {
         EClass eClass = newEClassBuilder().withName("EClass").build();
@@ -140,6 +184,30 @@ public class AsmModelAdapterTest extends ExecutionContextOnAsmTest {
         assertThat(modelAdapter.getAttribute(eClass.get(), "productName"), is(Optional.empty()));
     }
 
+    @Test
+    public void testGetFeatureAfterModelChange() {
+        final EClass customer = (EClass) asmUtils.resolve("demo.entities.Customer").get();
+        final EClass company = (EClass) asmUtils.resolve("demo.entities.Company").get();
+        final EDataType stringType = (EDataType) asmUtils.resolve("demo.types.String").get();
+
+        assertFalse(modelAdapter.getAttribute(company, "email").isPresent());
+        assertTrue(modelAdapter.getReference(company, "orders").isPresent());
+
+        final EAttribute email = newEAttributeBuilder().withName("email").withEType(stringType).build();
+        customer.getEStructuralFeatures().add(email);
+        assertThat(modelAdapter.getAttribute(company, "email"), is(Optional.of(email)));
+        assertThat(modelAdapter.getTransferAttribute(company, "email"), is(Optional.of(email)));
+
+        email.setName("emailAddress");
+        assertFalse(modelAdapter.getAttribute(company, "email").isPresent());
+        assertThat(modelAdapter.getAttribute(company, "emailAddress"), is(Optional.of(email)));
+
+        final EClass supplier = (EClass) asmUtils.resolve("demo.entities.Supplier").get();
+        supplier.getESuperTypes().clear();
+        assertFalse(modelAdapter.getReference(supplier, "orders").isPresent());
+        assertFalse(modelAdapter.getTransferRelation(supplier, "orders").isPresent());
+    }
+
     @Test
     public void testGetAttributeType() {
         Optional<EClass> eClass = asmUtils.resolve("demo.entities.Category").map(c -> (EClass) c);
@@ -166,6 +234,68 @@ public class AsmModelAdapterTest extends ExecutionContextOnAsmTest {
         assertFalse(modelAdapter.getSuperTypes(negtestClass.get()).contains(superClass.get()));
     }
 
+    @Test
+    public void testIsMixin() {
+        final EClass customer = (EClass) asmUtils.resolve("demo.entities.Customer").get();
+        final EClass individual = (EClass) asmUtils.resolve("demo.entities.Individual").get();
+        final EClass shipper = (EClass) asmUtils.resolve("demo.entities.Shipper").get();
+
+        assertTrue(modelAdapter.isMixin(customer, shipper));
+        assertFalse(modelAdapter.isMixin(shipper, customer));
+        assertFalse(modelAdapter.isMixin(individual, shipper));
+        assertFalse(modelAdapter.isMixin(null, shipper));
+
+        final EAttribute firstName = individual.getEAttributes().get(0);
+        individual.getEStructuralFeatures().remove(firstName);
+        assertTrue(modelAdapter.isMixin(individual, shipper));
+
+        customer.getEReferences().get(0).setUpperBound(1);
+        assertTrue(modelAdapter.isMixin(individual, shipper));
+        assertTrue(modelAdapter.isMixin(customer, individual));
+
+        shipper.getEStructuralFeatures().add(firstName);
+        assertTrue(modelAdapter.isMixin(shipper, shipper));
+        assertFalse(modelAdapter.isMixin(shipper, individual));
+    }
+
+    @Test
+    public void testGetContainerTypesOf() {
+        final EClass orderDetail = (EClass) asmUtils.resolve("demo.entities.OrderDetail").get();
+        final EClass order = (EClass) asmUtils.resolve("demo.entities.Order").get();
+        final EClass internationalOrder = (EClass) asmUtils.resolve("demo.entities.InternationalOrder").get();
+        final EClass onlineOrder = (EClass) asmUtils.resolve("demo.entities.OnlineOrder").get();
+        final EClass territory = (EClass) asmUtils.resolve("demo.entities.Territory").get();
+
+        assertThat(new HashSet<>(modelAdapter.getContainerTypesOf(orderDetail)), is(ImmutableSet.of(order, internationalOrder, onlineOrder)));
+        assertTrue(modelAdapter.getContainerTypesOf(territory).isEmpty());
+
+        territory.getEStructuralFeatures().add(newEReferenceBuilder().withName("details").withContainment(true)
+                .withLowerBound(0).withUpperBound(-1).withEType(orderDetail).build());
+        assertThat(new HashSet<>(modelAdapter.getContainerTypesOf(orderDetail)), is(ImmutableSet.of(order, internationalOrder, onlineOrder, territory)));
+    }
+
+    @Test
+    public void testGetAllTypes() {
+        assertThat(modelAdapter.getAllEntityTypes().size(), is(15));
+        assertThat(modelAdapter.getAllEnums().size(), is(2));
+        assertThat(modelAdapter.getAllPrimitiveTypes().size(), is(14));
+        assertTrue(modelAdapter.getAllTransferObjectTypes().isEmpty());
+        assertTrue(modelAdapter.getAllMappedTransferObjectTypes().isEmpty());
+        assertTrue(modelAdapter.getAllUnmappedTransferObjectTypes().isEmpty());
+
+        final EPackage entities = asmUtils.resolve("demo.entities.Order").get().getEPackage();
+        final EClass invoice = newEClassBuilder().withName("Invoice").build();
+        entities.getEClassifiers().add(invoice);
+        assertThat(modelAdapter.getAllEntityTypes().size(), is(15));
+        assertThat(modelAdapter.getAllUnmappedTransferObjectTypes(), is(ECollections.singletonEList(invoice)));
+        assertThat(modelAdapter.getAllTransferObjectTypes(), is(ECollections.singletonEList(invoice)));
+
+        asmUtils.getExtensionAnnotationByName(invoice, "entity", true).get().getDetails().put("value", "true");
+        assertThat(modelAdapter.getAllEntityTypes().size(), is(16));
+        assertTrue(modelAdapter.getAllEntityTypes().contains(invoice));
+        assertTrue(modelAdapter.getAllUnmappedTransferObjectTypes().isEmpty());
+    }
+
     @Test
     public void testContains() {
         Optional<EEnum> countries = getAsmElement(EEnum.class).filter(e -> "Countries".equals(e.getName())).findAny();
@@ -256,6 +386,106 @@ public class AsmModelAdapterTest extends ExecutionContextOnAsmTest {
         assertThat(modelAdapter.getUnit(integerConstant), is(Optional.empty()));
     }
 
+    @Test
+    void testGetUnitOfAttributeAfterModelChange() {
+        final AsmModelAdapter asmModelAdapter = (AsmModelAdapter) modelAdapter;
+        final EClass product = (EClass) asmUtils.resolve("demo.entities.Product").get();
+        final EAttribute weight = (EAttribute) product.getEStructuralFeature("weight");
+
+        assertThat(asmModelAdapter.getUnit(weight), is(getUnitByName("kilogram")));
+
+        asmUtils.getExtensionAnnotationByName(weight, "constraints", false).get().getDetails().put("unit", "gram");
+        assertThat(asmModelAdapter.getUnit(weight), is(getUnitByName("gram")));
+
+        final Unit gram = getUnitByName("gram").get();
+        gram.setName("gramme");
+        assertFalse(asmModelAdapter.getUnit(weight).isPresent());
+
+        gram.setName("gram");
+        assertThat(asmModelAdapter.getUnit(weight), is(Optional.of(gram)));
+    }
+
+    @Test
+    void testGetUnitOfDetachedAttribute() {
+        final AsmModelAdapter asmModelAdapter = (AsmModelAdapter) modelAdapter;
+        final EClass product = (EClass) asmUtils.resolve("demo.entities.Product").get();
+        final EAttribute weight = (EAttribute) product.getEStructuralFeature("weight");
+        final EAnnotation constraints = asmUtils.getExtensionAnnotationByName(weight, "constraints", false).get();
+
+        assertThat(asmModelAdapter.getUnit(weight), is(getUnitByName("kilogram")));
+
+        // changes of detached attribute are not notified
+        product.getEStructuralFeatures().remove(weight);
+        constraints.getDetails().put("unit", "gram");
+        product.getEStructuralFeatures().add(weight);
+        assertThat(asmModelAdapter.getUnit(weight), is(getUnitByName("gram")));
+
+        product.getEStructuralFeatures().remove(weight);
+        constraints.getDetails().put("unit", "kilogram");
+        assertThat(asmModelAdapter.getUnit(weight), is(getUnitByName("kilogram")));
+        constraints.getDetails().put("unit", "gram");
+        assertThat(asmModelAdapter.getUnit(weight), is(getUnitByName("gram")));
+    }
+
+    @Test
+    void testGetUnitOfTypeAfterModelChange() {
+        final EDataType massStoredInKilograms = (EDataType) asmUtils.resolve("demo.types.measured.MassStoredInKilograms").get();
+
+        assertFalse(modelAdapter.isMeasuredType(massStoredInKilograms));
+        assertFalse(modelAdapter.getUnitOfType(massStoredInKilograms).isPresent());
+
+        final EAnnotation measuredAnnotation = asmUtils.getExtensionAnnotationByName(massStoredInKilograms, "measured", true).get();
+        measuredAnnotation.getDetails().put("measure", "demo.measures.Mass");
+        measuredAnnotation.getDetails().put("unit", "kilogram");
+
+        assertTrue(modelAdapter.isMeasuredType(massStoredInKilograms));
+        assertThat(modelAdapter.getMeasureOfType(massStoredInKilograms), is(getMeasureByName("Mass")));
+        assertThat(modelAdapter.getUnitOfType(massStoredInKilograms), is(getUnitByName("kilogram")));
+
+        measuredAnnotation.getDetails().put("unit", "gram");
+        assertThat(modelAdapter.getUnitOfType(massStoredInKilograms), is(getUnitByName("gram")));
+
+        getMeasureByName("Mass").get().setName("Weight");
+        assertFalse(modelAdapter.isMeasuredType(massStoredInKilograms));
+        assertFalse(modelAdapter.getUnitOfType(massStoredInKilograms).isPresent());
+    }
+
+    @Test
+    public void testGetBaseDurationRatio() {
+        final DurationUnit hour = (DurationUnit) getUnitByName("hour").get();
+        final DurationUnit millisecond = (DurationUnit) getUnitByName("millisecond").get();
+
+        for (final DurationUnit unit : new DurationUnit[] {hour, millisecond}) {
+            for (final ModelAdapter.DurationType targetType : new ModelAdapter.DurationType[] {ModelAdapter.DurationType.SECOND, ModelAdapter.DurationType.DAY}) {
+                final ModelAdapter.UnitFraction expected = AsmMeasureProvider.computeBaseDurationRatio(unit, targetType);
+                final ModelAdapter.UnitFraction ratio = modelAdapter.getBaseDurationRatio(unit, targetType);
+                assertThat(ratio.getDividend(), is(expected.getDividend()));
+                assertThat(ratio.getDivisor(), is(expected.getDivisor()));
+                // ratios are precomputed
+                assertSame(ratio, modelAdapter.getBaseDurationRatio(unit, targetType));
+            }
+        }
+
+        // ratios are expressed in base unit (second) of measure: 3600/1 * 1/3600 and 1/24 * 1/3600 (not reduced)
+        assertRatio(modelAdapter.getBaseDurationRatio(hour, ModelAdapter.DurationType.SECOND), 1, 1);
+        assertRatio(modelAdapter.getBaseDurationRatio(hour, ModelAdapter.DurationType.DAY), 1, 86400);
+        // rate of millisecond is not exact (created from double)
+        assertRatio(modelAdapter.getBaseDurationRatio(millisecond, ModelAdapter.DurationType.SECOND), 1, 1);
+        assertRatio(modelAdapter.getBaseDurationRatio(millisecond, ModelAdapter.DurationType.DAY), 1, 86400);
+        assertRatio(modelAdapter.getBaseDurationRatio(getUnitByName("day").get(), ModelAdapter.DurationType.DAY), 1, 86400);
+
+        assertThrows(IllegalArgumentException.class, () -> modelAdapter.getBaseDurationRatio(getUnitByName("month").get(), ModelAdapter.DurationType.SECOND));
+        assertThrows(IllegalArgumentException.class, () -> modelAdapter.getBaseDurationRatio(getUnitByName("year").get(), ModelAdapter.DurationType.DAY));
+        assertThrows(IllegalArgumentException.class, () -> modelAdapter.getBaseDurationRatio(hour, ModelAdapter.DurationType.MINUTE));
+        assertThrows(IllegalArgumentException.class, () -> modelAdapter.getBaseDurationRatio(getUnitByName("metre").get(), ModelAdapter.DurationType.SECOND));
+    }
+
+    private static void assertRatio(final ModelAdapter.UnitFraction fraction, final long dividend, final long divisor) {
+        final BigDecimal expected = BigDecimal.valueOf(dividend).divide(BigDecimal.valueOf(divisor), MathContext.DECIMAL32);
+        assertEquals(0, fraction.getDividend().divide(fraction.getDivisor(), MathContext.DECIMAL32).compareTo(expected),
+                () -> "Unexpected ratio: " + fraction.getDividend() + "/" + fraction.getDivisor());
+    }
+
     <T> Stream<T> getAsmElement(final Class<T> clazz) {
         final Iterable<Notifier> asmContents = asmModel.getResourceSet()::getAllContents;
         return StreamSupport.stream(asmContents.spliterator(), true)
@@ -0,0 +1,91 @@
+package hu.blackbelt.judo.meta.expression.adapters.asm;
+
+/*-
+ * #%L
+ * JUDO :: Expression :: ASM Adapter Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.expression.ExecutionContextOnAsmTest;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static hu.blackbelt.judo.meta.expression.adapters.asm.AsmModelAdapterLookups.lookup;
+import static java.util.stream.Collectors.toList;
+import static org.eclipse.emf.ecore.util.builder.EcoreBuilders.newEAttributeBuilder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrentAsmModelAdapterTest extends ExecutionContextOnAsmTest {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 100;
+
+    @Test
+    public void testConcurrentLookups() throws Exception {
+        final ConcurrentAsmModelAdapter modelAdapter = new ConcurrentAsmModelAdapter(asmModel.getResourceSet(), measureModel.getResourceSet());
+        final List<EClass> classes = asmUtils.all(EClass.class).collect(toList());
+        final List<EDataType> dataTypes = asmUtils.all(EDataType.class).collect(toList());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<List<Object>>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    List<Object> results = null;
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        results = lookup(modelAdapter, classes, dataTypes);
+                    }
+                    return results;
+                }));
+            }
+            start.countDown();
+
+            final List<List<Object>> results = new ArrayList<>();
+            for (final Future<List<Object>> future : futures) {
+                results.add(future.get());
+            }
+            final List<Object> expected = lookup(modelAdapter, classes, dataTypes);
+            results.forEach(r -> assertEquals(expected, r));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPrepareAfterModelChange() {
+        final ConcurrentAsmModelAdapter modelAdapter = new ConcurrentAsmModelAdapter(asmModel.getResourceSet(), measureModel.getResourceSet());
+        final EClass order = (EClass) asmUtils.resolve("demo.entities.Order").get();
+
+        order.getEStructuralFeatures().add(newEAttributeBuilder().withName("comment")
+                .withEType(((EAttribute) order.getEStructuralFeature("orderDate")).getEAttributeType()).build());
+        modelAdapter.prepare();
+
+        assertTrue(modelAdapter.getAttribute(order, "comment").isPresent());
+    }
+}
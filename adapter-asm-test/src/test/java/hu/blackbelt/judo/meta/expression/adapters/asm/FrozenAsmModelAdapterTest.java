@@ -0,0 +1,111 @@
+package hu.blackbelt.judo.meta.expression.adapters.asm;
+
+/*-
+ * #%L
+ * JUDO :: Expression :: ASM Adapter Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.expression.ExecutionContextOnAsmTest;
+import hu.blackbelt.judo.meta.expression.MeasureName;
+import hu.blackbelt.judo.meta.expression.adapters.ModelAdapter.UnitFraction;
+import hu.blackbelt.judo.meta.measure.Measure;
+import hu.blackbelt.judo.meta.measure.Unit;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static hu.blackbelt.judo.meta.expression.adapters.asm.AsmModelAdapterLookups.lookup;
+import static hu.blackbelt.judo.meta.expression.util.builder.ExpressionBuilders.newMeasureNameBuilder;
+import static java.util.stream.Collectors.toList;
+import static org.eclipse.emf.ecore.util.builder.EcoreBuilders.newEAttributeBuilder;
+import static org.eclipse.emf.ecore.util.builder.EcoreBuilders.newEClassBuilder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FrozenAsmModelAdapterTest extends ExecutionContextOnAsmTest {
+
+    @Test
+    public void testSnapshotMatchesModel() {
+        final AsmModelAdapter modelAdapter = new AsmModelAdapter(asmModel.getResourceSet(), measureModel.getResourceSet());
+        final FrozenAsmModelAdapter frozenModelAdapter = new FrozenAsmModelAdapter(asmModel.getResourceSet(), measureModel.getResourceSet());
+
+        final List<EClass> classes = asmUtils.all(EClass.class).collect(toList());
+        final List<EDataType> dataTypes = asmUtils.all(EDataType.class).collect(toList());
+
+        assertEquals(lookup(modelAdapter, classes, dataTypes), lookup(frozenModelAdapter, classes, dataTypes));
+        assertFalse(frozenModelAdapter.isStale());
+    }
+
+    @Test
+    public void testSnapshotIsImmutable() {
+        final FrozenAsmModelAdapter frozenModelAdapter = new FrozenAsmModelAdapter(asmModel.getResourceSet(), measureModel.getResourceSet());
+        final EClass order = (EClass) asmUtils.resolve("demo.entities.Order").get();
+
+        assertThrows(UnsupportedOperationException.class, () -> frozenModelAdapter.getAllEntityTypes().add(newEClassBuilder().withName("Invoice").build()));
+
+        order.getEStructuralFeatures().add(newEAttributeBuilder().withName("comment")
+                .withEType(((EAttribute) order.getEStructuralFeature("orderDate")).getEAttributeType()).build());
+        assertTrue(frozenModelAdapter.isStale());
+        assertFalse(frozenModelAdapter.getAttribute(order, "comment").isPresent());
+        assertTrue(new FrozenAsmModelAdapter(asmModel.getResourceSet(), measureModel.getResourceSet()).getAttribute(order, "comment").isPresent());
+    }
+
+    @Test
+    public void testSnapshotOfUnnamedElements() {
+        final EClass order = (EClass) asmUtils.resolve("demo.entities.Order").get();
+
+        order.getEPackage().getEClassifiers().add(newEClassBuilder().build());
+        order.getEStructuralFeatures().add(newEAttributeBuilder()
+                .withEType(((EAttribute) order.getEStructuralFeature("orderDate")).getEAttributeType()).build());
+        final FrozenAsmModelAdapter frozenModelAdapter = new FrozenAsmModelAdapter(asmModel.getResourceSet(), measureModel.getResourceSet());
+
+        assertTrue(frozenModelAdapter.getAttribute(order, "orderDate").isPresent());
+        assertFalse(frozenModelAdapter.isStale());
+    }
+
+    @Test
+    public void testSnapshotOfMeasures() {
+        final FrozenAsmModelAdapter frozenModelAdapter = new FrozenAsmModelAdapter(asmModel.getResourceSet(), measureModel.getResourceSet());
+        final AsmModelAdapter modelAdapter = new AsmModelAdapter(asmModel.getResourceSet(), measureModel.getResourceSet());
+        final MeasureName massName = newMeasureNameBuilder().withNamespace("demo::measures").withName("Mass").build();
+        final Measure mass = frozenModelAdapter.get(massName).get();
+        final Unit gram = mass.getUnits().stream().filter(u -> "gram".equals(u.getName())).findAny().get();
+        final Unit kilogram = mass.getUnits().stream().filter(u -> "kilogram".equals(u.getName())).findAny().get();
+        final UnitFraction gramRates = frozenModelAdapter.getUnitRates(gram);
+        final UnitFraction gramToKilogram = frozenModelAdapter.getConversionRate(gram, kilogram).get();
+
+        gram.setRateDividend(new BigDecimal("0.002"));
+        assertTrue(frozenModelAdapter.isStale());
+        assertSame(gramRates, frozenModelAdapter.getUnitRates(gram));
+        assertSame(gramToKilogram, frozenModelAdapter.getConversionRate(gram, kilogram).get());
+        assertNotEquals(0, gramToKilogram.getDivisor().compareTo(modelAdapter.getConversionRate(gram, kilogram).get().getDivisor()));
+
+        measureModel.getResource().getContents().remove(mass);
+        assertSame(mass, frozenModelAdapter.get(massName).get());
+        assertTrue(frozenModelAdapter.getAllMeasures().contains(mass));
+        assertFalse(modelAdapter.get(massName).isPresent());
+    }
+}
@@ -0,0 +1,66 @@
+package hu.blackbelt.judo.meta.expression.adapters.asm;
+
+/*-
+ * #%L
+ * JUDO :: Expression :: ASM Adapter Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.asm.runtime.AsmModel;
+import hu.blackbelt.judo.meta.expression.ExecutionContextOnAsmTest;
+import hu.blackbelt.judo.meta.measure.runtime.MeasureModel;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+
+import static hu.blackbelt.judo.meta.asm.runtime.AsmModel.buildAsmModel;
+import static hu.blackbelt.judo.meta.measure.runtime.MeasureModel.buildMeasureModel;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ModelBinarySupportTest extends ExecutionContextOnAsmTest {
+
+    @Test
+    public void testSaveAndLoad(@TempDir final File directory) throws Exception {
+        final File asmFile = new File(directory, "asm.bin");
+        final File measureFile = new File(directory, "measure.bin");
+        ModelBinarySupport.save(asmModel.getResource(), asmFile);
+        ModelBinarySupport.save(measureModel.getResource(), measureFile);
+
+        final AsmModel loadedAsmModel = buildAsmModel()
+                .uri(URI.createURI("urn:loaded.judo-meta-asm"))
+                .build();
+        ModelBinarySupport.load(loadedAsmModel.getResource(), asmFile);
+        final MeasureModel loadedMeasureModel = buildMeasureModel()
+                .name("loaded")
+                .build();
+        ModelBinarySupport.load(loadedMeasureModel.getResource(), measureFile);
+
+        assertTrue(EcoreUtil.equals(asmModel.getResource().getContents(), loadedAsmModel.getResource().getContents()));
+        assertTrue(EcoreUtil.equals(measureModel.getResource().getContents(), loadedMeasureModel.getResource().getContents()));
+
+        final AsmModelAdapter modelAdapter = new AsmModelAdapter(loadedAsmModel.getResourceSet(), loadedMeasureModel.getResourceSet());
+        final EClass order = modelAdapter.getAllEntityTypes().stream().filter(c -> "Order".equals(c.getName())).findAny().get();
+        assertEquals("demo::entities", modelAdapter.buildTypeName(order).get().getNamespace());
+        assertEquals(new AsmModelAdapter(asmModel.getResourceSet(), measureModel.getResourceSet()).getAllMeasures().size(),
+                modelAdapter.getAllMeasures().size());
+    }
+}
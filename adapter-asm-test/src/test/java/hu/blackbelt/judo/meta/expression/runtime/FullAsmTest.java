@@ -21,14 +21,26 @@ package hu.blackbelt.judo.meta.expression.runtime;
  */
 
 import org.slf4j.Logger;
+import hu.blackbelt.epsilon.runtime.execution.exceptions.ScriptExecutionException;
 import hu.blackbelt.epsilon.runtime.execution.impl.BufferedSlf4jLogger;
 import hu.blackbelt.judo.meta.expression.ExecutionContextOnAsmTest;
+import hu.blackbelt.judo.meta.expression.Expression;
+import hu.blackbelt.judo.meta.expression.adapters.asm.ExpressionEpsilonValidatorOnAsm;
+import hu.blackbelt.judo.meta.expression.operator.DecimalOperator;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+
 import static hu.blackbelt.judo.meta.expression.adapters.asm.ExpressionEpsilonValidatorOnAsm.validateExpressionOnAsm;
+import static hu.blackbelt.judo.meta.expression.constant.util.builder.ConstantBuilders.newDecimalConstantBuilder;
+import static hu.blackbelt.judo.meta.expression.constant.util.builder.ConstantBuilders.newMeasuredDecimalBuilder;
+import static hu.blackbelt.judo.meta.expression.numeric.util.builder.NumericBuilders.newDecimalArithmeticExpressionBuilder;
 import static hu.blackbelt.judo.meta.expression.runtime.ExpressionEpsilonValidator.calculateExpressionValidationScriptURI;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Slf4j
@@ -48,4 +60,36 @@ class FullAsmTest extends ExecutionContextOnAsmTest {
             validateExpressionOnAsm(bufferedLog, asmModel, measureModel, expressionModel, calculateExpressionValidationScriptURI());
         }
     }
+
+    @Test
+    void testReusedValidator() throws Exception {
+        try (BufferedSlf4jLogger bufferedLog = new BufferedSlf4jLogger(log)) {
+            final ExpressionEpsilonValidatorOnAsm validator =
+                    new ExpressionEpsilonValidatorOnAsm(bufferedLog, asmModel, measureModel, calculateExpressionValidationScriptURI());
+            validator.validate(expressionModel);
+
+            // errors of changed model are reported by the same validator
+            final Expression invalidAddition = newDecimalArithmeticExpressionBuilder()
+                    .withLeft(newMeasuredDecimalBuilder().withValue(BigDecimal.ONE).withUnitName("kg").build())
+                    .withOperator(DecimalOperator.ADD)
+                    .withRight(newDecimalConstantBuilder().withValue(BigDecimal.TEN).build())
+                    .build();
+            expressionModel.getResource().getContents().add(invalidAddition);
+            assertThrows(ScriptExecutionException.class, () -> validator.validate(expressionModel));
+            validator.validate(expressionModel,
+                    Arrays.asList("MeasureOfAdditionIsValid|Measures of addition are not matching: (1[kg] + 10)"),
+                    Collections.emptyList());
+
+            expressionModel.getResource().getContents().remove(invalidAddition);
+            validator.validate(expressionModel);
+        }
+    }
+
+    @Test
+    void testParallelValidation() throws Exception {
+        try (BufferedSlf4jLogger bufferedLog = new BufferedSlf4jLogger(log)) {
+            new ExpressionEpsilonValidatorOnAsm(bufferedLog, asmModel, measureModel, calculateExpressionValidationScriptURI(), 4)
+                    .validate(expressionModel);
+        }
+    }
 }
@@ -21,8 +21,11 @@ package hu.blackbelt.judo.meta.expression.runtime;
  */
 
 import org.slf4j.Logger;
+import hu.blackbelt.epsilon.runtime.execution.exceptions.ScriptExecutionException;
 import hu.blackbelt.epsilon.runtime.execution.impl.BufferedSlf4jLogger;
 import hu.blackbelt.judo.meta.expression.ExecutionContextOnAsmTest;
+import hu.blackbelt.judo.meta.expression.adapters.asm.ExpressionEpsilonValidatorOnAsm;
+import hu.blackbelt.judo.meta.expression.numeric.DecimalArithmeticExpression;
 import hu.blackbelt.judo.meta.expression.operator.DecimalOperator;
 import hu.blackbelt.judo.meta.expression.support.ExpressionModelResourceSupport;
 import lombok.extern.slf4j.Slf4j;
@@ -31,18 +34,24 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static hu.blackbelt.judo.meta.expression.adapters.asm.ExpressionEpsilonValidatorOnAsm.validateExpressionOnAsm;
 import static hu.blackbelt.judo.meta.expression.constant.util.builder.ConstantBuilders.newDecimalConstantBuilder;
 import static hu.blackbelt.judo.meta.expression.constant.util.builder.ConstantBuilders.newMeasuredDecimalBuilder;
 import static hu.blackbelt.judo.meta.expression.numeric.util.builder.NumericBuilders.newDecimalArithmeticExpressionBuilder;
 import static hu.blackbelt.judo.meta.expression.runtime.ExpressionEpsilonValidator.calculateExpressionValidationScriptURI;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @Slf4j
 public class MeasuredTest extends ExecutionContextOnAsmTest {
 
+    private DecimalArithmeticExpression kilogramPlusNumber;
+    private DecimalArithmeticExpression centimeterPlusMeter;
+
     @BeforeEach
     public void setUp() throws Exception {
         super.setUp();
@@ -51,11 +60,12 @@ public class MeasuredTest extends ExecutionContextOnAsmTest {
                 .uri(URI.createURI("expr:test"))
                 .build();
 
-        expressionModelResourceSupport.addContent(newDecimalArithmeticExpressionBuilder()
+        kilogramPlusNumber = newDecimalArithmeticExpressionBuilder()
                 .withLeft(newMeasuredDecimalBuilder().withValue(BigDecimal.ONE).withUnitName("kg").build())
                 .withOperator(DecimalOperator.ADD)
                 .withRight(newDecimalConstantBuilder().withValue(BigDecimal.TEN).build())
-                .build());
+                .build();
+        expressionModelResourceSupport.addContent(kilogramPlusNumber);
 
         expressionModelResourceSupport.addContent(newDecimalArithmeticExpressionBuilder()
                 .withLeft(newMeasuredDecimalBuilder().withValue(BigDecimal.ONE).withUnitName("kg").build())
@@ -63,11 +73,12 @@ public class MeasuredTest extends ExecutionContextOnAsmTest {
                 .withRight(newDecimalConstantBuilder().withValue(BigDecimal.TEN).build())
                 .build());
 
-        expressionModelResourceSupport.addContent(newDecimalArithmeticExpressionBuilder()
+        centimeterPlusMeter = newDecimalArithmeticExpressionBuilder()
                 .withLeft(newMeasuredDecimalBuilder().withValue(BigDecimal.ONE).withUnitName("cm").build())
                 .withOperator(DecimalOperator.ADD)
                 .withRight(newMeasuredDecimalBuilder().withValue(BigDecimal.TEN).withUnitName("m").build())
-                .build());
+                .build();
+        expressionModelResourceSupport.addContent(centimeterPlusMeter);
 
         expressionModelResourceSupport.addContent(newDecimalArithmeticExpressionBuilder()
                 .withLeft(newDecimalConstantBuilder().withValue(BigDecimal.ONE).build())
@@ -91,4 +102,105 @@ public class MeasuredTest extends ExecutionContextOnAsmTest {
                                     Collections.emptyList());
         }
     }
+
+    @Test
+    void testValidateChangesOfMeasuredConstants() throws Exception {
+        try (BufferedSlf4jLogger bufferedLog = new BufferedSlf4jLogger(log)) {
+            final ExpressionEpsilonValidatorOnAsm validator =
+                    new ExpressionEpsilonValidatorOnAsm(bufferedLog, asmModel, measureModel, calculateExpressionValidationScriptURI());
+
+            // addition of different units of the same measure is valid
+            validator.validateChanges(expressionModel, Collections.singletonList(centimeterPlusMeter));
+
+            validator.validateChanges(expressionModel, Collections.singletonList(kilogramPlusNumber),
+                    Arrays.asList("MeasureOfAdditionIsValid|Measures of addition are not matching: (1[kg] + 10)"),
+                    Collections.emptyList());
+        }
+    }
+
+    @Test
+    void testParallelValidationOfMeasuredConstants() throws Exception {
+        try (BufferedSlf4jLogger bufferedLog = new BufferedSlf4jLogger(log)) {
+            final ExpressionEpsilonValidatorOnAsm validator =
+                    new ExpressionEpsilonValidatorOnAsm(bufferedLog, asmModel, measureModel, calculateExpressionValidationScriptURI(), 2);
+
+            // errors are reported by parallel validation too
+            assertThrows(ScriptExecutionException.class, () -> validator.validate(expressionModel));
+
+            validator.validate(expressionModel,
+                    Arrays.asList("MeasureOfAdditionIsValid|Measures of addition are not matching: (1[kg] + 10)"),
+                    Collections.emptyList());
+        }
+    }
+
+    @Test
+    void testParallelValidationOfErrorsInSeveralPartitions() throws Exception {
+        expressionModel.getResource().getContents().add(newDecimalArithmeticExpressionBuilder()
+                .withLeft(newMeasuredDecimalBuilder().withValue(new BigDecimal(2)).withUnitName("kg").build())
+                .withOperator(DecimalOperator.ADD)
+                .withRight(newDecimalConstantBuilder().withValue(BigDecimal.TEN).build())
+                .build());
+        expressionModel.getResource().getContents().add(newDecimalArithmeticExpressionBuilder()
+                .withLeft(newMeasuredDecimalBuilder().withValue(BigDecimal.ONE).withUnitName("m").build())
+                .withOperator(DecimalOperator.ADD)
+                .withRight(newDecimalConstantBuilder().withValue(BigDecimal.TEN).build())
+                .build());
+        final List<String> expectedErrors = Arrays.asList(
+                "MeasureOfAdditionIsValid|Measures of addition are not matching: (1[kg] + 10)",
+                "MeasureOfAdditionIsValid|Measures of addition are not matching: (2[kg] + 10)",
+                "MeasureOfAdditionIsValid|Measures of addition are not matching: (1[m] + 10)");
+
+        try (BufferedSlf4jLogger bufferedLog = new BufferedSlf4jLogger(log)) {
+            final ExpressionEpsilonValidatorOnAsm sequentialValidator =
+                    new ExpressionEpsilonValidatorOnAsm(bufferedLog, asmModel, measureModel, calculateExpressionValidationScriptURI());
+            final ExpressionEpsilonValidatorOnAsm parallelValidator =
+                    new ExpressionEpsilonValidatorOnAsm(bufferedLog, asmModel, measureModel, calculateExpressionValidationScriptURI(), 4);
+
+            // errors of several partitions are merged into the same set of errors as sequential validation reports
+            sequentialValidator.validate(expressionModel, expectedErrors, Collections.emptyList());
+            parallelValidator.validate(expressionModel, expectedErrors, Collections.emptyList());
+
+            assertThrows(ScriptExecutionException.class, () -> parallelValidator.validate(expressionModel,
+                    expectedErrors.subList(0, 2), Collections.emptyList()));
+            assertThrows(ScriptExecutionException.class, () -> parallelValidator.validate(expressionModel));
+        }
+    }
+
+    @Test
+    void testParallelValidationOfManyPartitions() throws Exception {
+        final List<String> expectedErrors = new ArrayList<>();
+        expectedErrors.add("MeasureOfAdditionIsValid|Measures of addition are not matching: (1[kg] + 10)");
+        for (int i = 2; i < 50; i++) {
+            expressionModel.getResource().getContents().add(newDecimalArithmeticExpressionBuilder()
+                    .withLeft(newMeasuredDecimalBuilder().withValue(new BigDecimal(i)).withUnitName("cm").build())
+                    .withOperator(DecimalOperator.ADD)
+                    .withRight(newMeasuredDecimalBuilder().withValue(BigDecimal.TEN).withUnitName("m").build())
+                    .build());
+            if (i % 5 == 0) {
+                expressionModel.getResource().getContents().add(newDecimalArithmeticExpressionBuilder()
+                        .withLeft(newMeasuredDecimalBuilder().withValue(new BigDecimal(i)).withUnitName("kg").build())
+                        .withOperator(DecimalOperator.ADD)
+                        .withRight(newDecimalConstantBuilder().withValue(BigDecimal.TEN).build())
+                        .build());
+                expectedErrors.add("MeasureOfAdditionIsValid|Measures of addition are not matching: (" + i + "[kg] + 10)");
+            }
+        }
+
+        try (BufferedSlf4jLogger bufferedLog = new BufferedSlf4jLogger(log)) {
+            final ExpressionEpsilonValidatorOnAsm parallelValidator =
+                    new ExpressionEpsilonValidatorOnAsm(bufferedLog, asmModel, measureModel, calculateExpressionValidationScriptURI(), 16);
+
+            // execution contexts of partitions are loaded and closed concurrently on the same ASM and measure models
+            for (int i = 0; i < 5; i++) {
+                parallelValidator.validate(expressionModel, expectedErrors, Collections.emptyList());
+            }
+            assertThrows(ScriptExecutionException.class, () -> parallelValidator.validate(expressionModel,
+                    expectedErrors.subList(1, expectedErrors.size()), Collections.emptyList()));
+            assertThrows(ScriptExecutionException.class, () -> parallelValidator.validate(expressionModel));
+
+            // models are still usable by sequential validation
+            new ExpressionEpsilonValidatorOnAsm(bufferedLog, asmModel, measureModel, calculateExpressionValidationScriptURI())
+                    .validate(expressionModel, expectedErrors, Collections.emptyList());
+        }
+    }
 }
@@ -20,6 +20,8 @@ package hu.blackbelt.judo.meta.expression.adapters.asm;
  * #L%
  */
 
+import hu.blackbelt.judo.meta.expression.adapters.ModelAdapter;
+import hu.blackbelt.judo.meta.expression.adapters.ModelAdapter.UnitFraction;
 import hu.blackbelt.judo.meta.expression.adapters.measure.MeasureChangedHandler;
 import hu.blackbelt.judo.meta.expression.adapters.measure.MeasureProvider;
 import hu.blackbelt.judo.meta.measure.BaseMeasure;
@@ -39,23 +41,62 @@ import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.util.EContentAdapter;
 import org.slf4j.Logger;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 /**
  * Measure provider for measure metamodel that is used runtime (with ASM models).
+ *
+ * <p>Lookup tables of measures and units (including conversion rates between units) are built on first access and
+ * dropped when the measure model changes.</p>
+ *
+ * <p>Unit rates and conversion rates are available as <code>double</code> factors too (for evaluations where results
+ * are <code>double</code> values anyway), see {@link #getDoubleUnitRate(Unit)} and
+ * {@link #getDoubleConversionRate(Unit, Unit)}. Double factors are computed on first request only, each factor
+ * tells if it is exactly the same as the decimal rate.</p>
  */
 public class AsmMeasureProvider implements MeasureProvider<Measure, Unit> {
 
+    /**
+     * Default minimum number of measure model elements that are filtered in parallel.
+     */
+    public static final int DEFAULT_PARALLEL_TRAVERSAL_THRESHOLD = 10000;
+
+    private static final List<ModelAdapter.DurationType> BASE_DURATION_TYPES = Arrays.asList(ModelAdapter.DurationType.SECOND, ModelAdapter.DurationType.DAY);
     private static final List<DurationType> DURATION_UNITS_SUPPORTING_ADDITION = Arrays.asList(DurationType.MILLISECOND, DurationType.SECOND, DurationType.MINUTE, DurationType.HOUR, DurationType.DAY, DurationType.WEEK);
     private static final Logger log = org.slf4j.LoggerFactory.getLogger(AsmMeasureProvider.class);
 
     private final ResourceSet resourceSet;
+    private final int parallelTraversalThreshold;
+
+    private final AtomicLong modificationCount = new AtomicLong();
+
+    private volatile MeasureIndex measureIndex;
+    private volatile MeasureIndex frozenMeasureIndex;
+    private final List<MeasureChangedHandler> measureChangeHandlers = new CopyOnWriteArrayList<>();
 
     public AsmMeasureProvider(final ResourceSet resourceSet) {
+        this(resourceSet, DEFAULT_PARALLEL_TRAVERSAL_THRESHOLD);
+    }
+
+    /**
+     * Create measure provider.
+     *
+     * @param resourceSet                measure resource set
+     * @param parallelTraversalThreshold minimum number of measure model elements that are filtered in parallel,
+     *                                   smaller models are traversed sequentially
+     */
+    public AsmMeasureProvider(final ResourceSet resourceSet, final int parallelTraversalThreshold) {
         this.resourceSet = resourceSet;
+        this.parallelTraversalThreshold = parallelTraversalThreshold;
+        resourceSet.eAdapters().add(new MeasureChangeAdapter());
     }
 
     @Override
@@ -70,9 +111,7 @@ public class AsmMeasureProvider implements MeasureProvider<Measure, Unit> {
 
     @Override
     public Optional<Measure> getMeasure(final String namespace, final String name) {
-        return getMeasureElement(Measure.class)
-                .filter(m -> Objects.equals(m.getNamespace(), namespace) && Objects.equals(m.getName(), name))
-                .findAny();
+        return Optional.ofNullable(getMeasureIndex().measuresByName.getOrDefault(namespace, Collections.emptyMap()).get(name));
     }
 
     @Override
@@ -101,88 +140,546 @@ public class AsmMeasureProvider implements MeasureProvider<Measure, Unit> {
 
     @Override
     public Optional<Unit> getUnitByNameOrSymbol(final Optional<Measure> measure, final String nameOrSymbol) {
+        final MeasureIndex index = getMeasureIndex();
         if (measure.isPresent()) {
-            return measure.map(m -> m.getUnits().stream()
-                    .filter(u -> Objects.equals(u.getName(), nameOrSymbol) || u.getSymbol() != null && Objects.equals(u.getSymbol(), nameOrSymbol))
-                    .findAny().orElse(null));
+            final Map<String, List<Unit>> unitsOfMeasure = index.unitsOfMeasureByNameOrSymbol.get(measure.get());
+            if (unitsOfMeasure == null) {
+                return measure.map(m -> m.getUnits().stream()
+                        .filter(u -> Objects.equals(u.getName(), nameOrSymbol) || u.getSymbol() != null && Objects.equals(u.getSymbol(), nameOrSymbol))
+                        .findAny().orElse(null));
+            }
+            return unitsOfMeasure.getOrDefault(nameOrSymbol, Collections.emptyList()).stream().findFirst();
         } else {
-            return getMeasureElement(Unit.class)
-                    .filter(u -> Objects.equals(u.getName(), nameOrSymbol) || u.getSymbol() != null && Objects.equals(u.getSymbol(), nameOrSymbol))
-                    .reduce((u1, u2) -> { throw new IllegalStateException("Ambiguous unit symbol, more than one measure contains " + nameOrSymbol); });
+            final List<Unit> units = index.unitsByNameOrSymbol.getOrDefault(nameOrSymbol, Collections.emptyList());
+            if (units.size() > 1) {
+                throw new IllegalStateException("Ambiguous unit symbol, more than one measure contains " + nameOrSymbol);
+            }
+            return units.stream().findFirst();
         }
     }
 
     @Override
     public Stream<Measure> getMeasures() {
-        return getMeasureElement(Measure.class);
+        return getMeasureIndex().measures.stream();
     }
 
     @Override
     public Stream<Unit> getUnits() {
-        return getMeasureElement(Unit.class);
+        return getMeasureIndex().units.stream();
     }
 
+    /**
+     * Register a handler that is notified about added, changed and removed measures. Handlers registered earlier are
+     * kept, all of them are notified.
+     *
+     * @param measureChangeHandler measure change handler
+     */
     @Override
     public void setMeasureChangeHandler(final MeasureChangedHandler measureChangeHandler) {
-        resourceSet.eAdapters().add(new EContentAdapter() {
-            @Override
-            public void notifyChanged(final Notification notification) {
-                super.notifyChanged(notification);
+        if (measureChangeHandler != null) {
+            measureChangeHandlers.add(measureChangeHandler);
+        }
+    }
+
+    @Override
+    public boolean isBaseMeasure(Measure measure) {
+        return measure instanceof BaseMeasure;
+    }
+
+    private Stream<Notifier> getMeasureContents() {
+        // tree iterator is not splittable, take a sized snapshot and filter it in parallel for large models only
+        final List<Notifier> measureContents = new ArrayList<>();
+        resourceSet.getAllContents().forEachRemaining(measureContents::add);
+        return measureContents.size() >= parallelTraversalThreshold
+                ? measureContents.parallelStream()
+                : measureContents.stream();
+    }
+
+    /**
+     * Get rates of a unit (relative to base unit of its measure).
+     *
+     * @param unit unit
+     * @return rates of unit
+     */
+    public UnitFraction getUnitRates(final Unit unit) {
+        final UnitFraction rates = getMeasureIndex().unitRates.get(unit);
+        return rates != null ? rates : new UnitFraction(unit.getRateDividend(), unit.getRateDivisor());
+    }
+
+    /**
+     * Get conversion rate between two units of the same measure. Value in source unit multiplied by dividend and
+     * divided by divisor is the value in target unit. Conversion rates of each pair of units of a measure are computed
+     * on the first conversion between units of the measure, dividend and divisor are coprime integers (divisor is
+     * positive).
+     *
+     * @param from source unit
+     * @param to   target unit
+     * @return conversion rate, empty if units are not belonging to the same measure or rates of units are not defined
+     */
+    public Optional<UnitFraction> getConversionRate(final Unit from, final Unit to) {
+        final ConversionTable table = getMeasureIndex().getConversionTable(from.eContainer());
+        return table != null ? table.get(from, to) : Optional.empty();
+    }
+
+    /**
+     * Get rate of a unit (relative to base unit of its measure) as a <code>double</code> factor. Callers choosing
+     * <code>double</code> arithmetic must check {@link DoubleRate#isExact()} if they need the same results as decimal
+     * calculations with {@link #getUnitRates(Unit)}.
+     *
+     * @param unit unit
+     * @return rate of unit, empty if rates of unit are not defined
+     */
+    public Optional<DoubleRate> getDoubleUnitRate(final Unit unit) {
+        final DoubleRate rate = getMeasureIndex().getDoubleUnitRates().get(unit);
+        if (rate != null) {
+            return Optional.of(rate);
+        }
+        // unit is not part of measure model
+        return unit.getRateDividend() != null && unit.getRateDivisor() != null && unit.getRateDivisor().signum() != 0
+                ? Optional.of(DoubleRate.of(unit.getRateDividend(), unit.getRateDivisor()))
+                : Optional.empty();
+    }
+
+    /**
+     * Get conversion rate between two units of the same measure as a <code>double</code> factor. Value in source unit
+     * multiplied by factor is the value in target unit. Callers choosing <code>double</code> arithmetic must check
+     * {@link DoubleRate#isExact()} if they need the same results as decimal calculations.
+     *
+     * @param from source unit
+     * @param to   target unit
+     * @return conversion rate, empty if units are not belonging to the same measure or rates of units are not defined
+     * @see #getConversionRate(Unit, Unit)
+     */
+    public Optional<DoubleRate> getDoubleConversionRate(final Unit from, final Unit to) {
+        final ConversionTable table = getMeasureIndex().getConversionTable(from.eContainer());
+        return table != null ? table.getDouble(from, to) : Optional.empty();
+    }
+
+    /**
+     * Get ratio of a duration unit to second or day (from precomputed tables).
+     *
+     * @param unit       duration unit
+     * @param targetType target duration type (second or day)
+     * @return ratio of unit to target type
+     * @throws IllegalArgumentException if unit is month or year or target type is not second or day
+     */
+    UnitFraction getBaseDurationRatio(final DurationUnit unit, final ModelAdapter.DurationType targetType) {
+        Map<ModelAdapter.DurationType, UnitFraction> ratios = getMeasureIndex().baseDurationRatios.get(unit);
+        if (ratios == null) {
+            // unit is not part of measure model
+            ratios = computeBaseDurationRatios(unit);
+        }
+        if (ratios.isEmpty()) {
+            throw new IllegalArgumentException("No duration ration is valid for month and year.");
+        }
+        final UnitFraction ratio = ratios.get(targetType);
+        if (ratio == null) {
+            throw new IllegalArgumentException("Only second and day duration type is supported.");
+        }
+        return ratio;
+    }
+
+    /**
+     * Compute ratios of a duration unit to second and day.
+     *
+     * @param unit duration unit
+     * @return ratios by target duration type, empty if no ratio is valid (month and year)
+     */
+    static Map<ModelAdapter.DurationType, UnitFraction> computeBaseDurationRatios(final DurationUnit unit) {
+        final Map<ModelAdapter.DurationType, UnitFraction> ratios = new EnumMap<>(ModelAdapter.DurationType.class);
+        final Optional<ModelAdapter.DurationType> type = getDurationType(unit);
+        if (type.isPresent()) {
+            for (final ModelAdapter.DurationType targetType : BASE_DURATION_TYPES) {
+                ratios.put(targetType, computeBaseDurationRatio(unit, type.get(), targetType));
+            }
+        }
+        return ratios;
+    }
+
+    /**
+     * Compute ratio of a duration unit to second or day.
+     *
+     * @param unit       duration unit
+     * @param targetType target duration type (second or day)
+     * @return ratio of unit to target type
+     * @throws IllegalArgumentException if unit is month or year or target type is not second or day
+     */
+    static UnitFraction computeBaseDurationRatio(final DurationUnit unit, final ModelAdapter.DurationType targetType) {
+        return computeBaseDurationRatio(unit, getDurationType(unit)
+                .orElseThrow(() -> new IllegalArgumentException("No duration ration is valid for month and year.")), targetType);
+    }
+
+    private static UnitFraction computeBaseDurationRatio(final DurationUnit unit, final ModelAdapter.DurationType type,
+                                                         final ModelAdapter.DurationType targetType) {
+        // examples in comments when unit is day, the base unit is minute
+        // example2 unit is millisecond, the base unit is minute
+        final BigDecimal dividendToBase = unit.getRateDividend(); // 1440 |---| 1
+        final BigDecimal divisorToBase = unit.getRateDivisor();  // 1 |---| 60000
+        final UnitFraction fraction;
+        if (targetType.equals(ModelAdapter.DurationType.SECOND)) {
+            fraction = type.getSecondUnitFraction(); // 86400/1 |---| 1/1000
+        } else if (targetType.equals(ModelAdapter.DurationType.DAY)) {
+            fraction = type.getDayUnitFraction();
+        } else {
+            throw new IllegalArgumentException("Only second and day duration type is supported.");
+        }
+        // however, we need to return the ratio calculated in the base unit. The base unit is minute, so the result must be 60/1
+        // so the result is: fraction * divisorToBase/dividendToBase
+        return new UnitFraction(fraction.getDividend().multiply(divisorToBase), fraction.getDivisor().multiply(dividendToBase));
+    }
+
+    private static Optional<ModelAdapter.DurationType> getDurationType(final DurationUnit unit) {
+        if (DurationType.NANOSECOND.equals(unit.getType())) {
+            return Optional.of(ModelAdapter.DurationType.NANOSECOND);
+        } else if (DurationType.MICROSECOND.equals(unit.getType())) {
+            return Optional.of(ModelAdapter.DurationType.MICROSECOND);
+        } else if (DurationType.MILLISECOND.equals(unit.getType())) {
+            return Optional.of(ModelAdapter.DurationType.MILLISECOND);
+        } else if (DurationType.SECOND.equals(unit.getType())) {
+            return Optional.of(ModelAdapter.DurationType.SECOND);
+        } else if (DurationType.MINUTE.equals(unit.getType())) {
+            return Optional.of(ModelAdapter.DurationType.MINUTE);
+        } else if (DurationType.HOUR.equals(unit.getType())) {
+            return Optional.of(ModelAdapter.DurationType.HOUR);
+        } else if (DurationType.DAY.equals(unit.getType())) {
+            return Optional.of(ModelAdapter.DurationType.DAY);
+        } else if (DurationType.WEEK.equals(unit.getType())) {
+            return Optional.of(ModelAdapter.DurationType.WEEK);
+        } else {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Get number of changes of measure model since provider is created.
+     *
+     * @return modification count
+     */
+    long getModificationCount() {
+        return modificationCount.get();
+    }
+
+    /**
+     * Build lookup tables of measures and units.
+     */
+    void prepare() {
+        getMeasureIndex();
+    }
+
+    /**
+     * Rebuild lookup tables of measures and units (even if measure model is not changed).
+     */
+    void refresh() {
+        measureIndex = buildMeasureIndex();
+    }
+
+    /**
+     * Keep current lookup tables of measures and units, they are not dropped when measure model changes. Modification
+     * count is still updated and measure change handlers are still notified on changes.
+     */
+    void freeze() {
+        frozenMeasureIndex = getMeasureIndex();
+    }
+
+    private MeasureIndex getMeasureIndex() {
+        final MeasureIndex frozenIndex = frozenMeasureIndex;
+        if (frozenIndex != null) {
+            return frozenIndex;
+        }
+        MeasureIndex index = measureIndex;
+        if (index == null) {
+            index = buildMeasureIndex();
+            measureIndex = index;
+        }
+        return index;
+    }
+
+    private MeasureIndex buildMeasureIndex() {
+        // measures and units are collected in a single traversal, order of model contents is kept
+        final Map<Boolean, List<Notifier>> elements = getMeasureContents()
+                .filter(e -> e instanceof Measure || e instanceof Unit)
+                .collect(Collectors.partitioningBy(Measure.class::isInstance));
+        return new MeasureIndex(elements.get(true).stream().map(Measure.class::cast).collect(Collectors.toList()),
+                elements.get(false).stream().map(Unit.class::cast).collect(Collectors.toList()));
+    }
 
-                if (measureChangeHandler == null) {
-                    return;
+    static UnitFraction reduce(final BigDecimal dividend, final BigDecimal divisor) {
+        final int scale = Math.max(Math.max(dividend.scale(), divisor.scale()), 0);
+        BigInteger reducedDividend = dividend.movePointRight(scale).toBigIntegerExact();
+        BigInteger reducedDivisor = divisor.movePointRight(scale).toBigIntegerExact();
+        if (reducedDivisor.signum() < 0) {
+            reducedDividend = reducedDividend.negate();
+            reducedDivisor = reducedDivisor.negate();
+        }
+        final BigInteger gcd = reducedDividend.gcd(reducedDivisor);
+        if (gcd.signum() != 0) {
+            reducedDividend = reducedDividend.divide(gcd);
+            reducedDivisor = reducedDivisor.divide(gcd);
+        }
+        return new UnitFraction(new BigDecimal(reducedDividend), new BigDecimal(reducedDivisor));
+    }
+
+    /**
+     * Lookup tables of measures and units, built from a snapshot of the measure model.
+     */
+    private static class MeasureIndex {
+
+        private final List<Measure> measures;
+        private final List<Unit> units;
+        private final Map<String, Map<String, Measure>> measuresByName = new HashMap<>();
+        private final Map<String, List<Unit>> unitsByNameOrSymbol = new HashMap<>();
+        private final Map<Measure, Map<String, List<Unit>>> unitsOfMeasureByNameOrSymbol = new HashMap<>();
+        private final Map<Unit, UnitFraction> unitRates = new HashMap<>();
+        private final Map<Measure, ConversionTable> conversionTables = new ConcurrentHashMap<>();
+        private final Map<Unit, Map<ModelAdapter.DurationType, UnitFraction>> baseDurationRatios = new HashMap<>();
+        private volatile Map<Unit, DoubleRate> doubleUnitRates;
+
+        private MeasureIndex(final List<Measure> measures, final List<Unit> units) {
+            this.measures = Collections.unmodifiableList(measures);
+            this.units = Collections.unmodifiableList(units);
+
+            measures.forEach(m -> {
+                measuresByName.computeIfAbsent(m.getNamespace(), k -> new HashMap<>()).putIfAbsent(m.getName(), m);
+                final Map<String, List<Unit>> unitsOfMeasure = new HashMap<>();
+                m.getUnits().forEach(u -> addUnit(unitsOfMeasure, u));
+                unitsOfMeasureByNameOrSymbol.put(m, unitsOfMeasure);
+            });
+            units.forEach(u -> {
+                addUnit(unitsByNameOrSymbol, u);
+                unitRates.put(u, new UnitFraction(u.getRateDividend(), u.getRateDivisor()));
+                if (u instanceof DurationUnit && u.getRateDividend() != null && u.getRateDivisor() != null) {
+                    baseDurationRatios.put(u, computeBaseDurationRatios((DurationUnit) u));
                 }
+            });
+        }
 
-                switch (notification.getEventType()) {
-                    case Notification.ADD:
-                    case Notification.ADD_MANY:
-                        if (notification.getNewValue() instanceof BaseMeasure) {
-                            measureChangeHandler.measureAdded(notification.getNewValue());
-                        } else if (notification.getNewValue() instanceof DerivedMeasure) {
-                            measureChangeHandler.measureAdded(notification.getNewValue());
-                        } else if (notification.getNewValue() instanceof Collection) {
-                            ((Collection) notification.getNewValue()).forEach(newValue -> {
-                                if (newValue instanceof BaseMeasure) {
-                                    measureChangeHandler.measureAdded(newValue);
-                                } else if (newValue instanceof DerivedMeasure) {
-                                    measureChangeHandler.measureAdded(newValue);
-                                }
-                            });
-                        } else if (notification.getFeatureID(DerivedMeasure.class) == MeasurePackage.DERIVED_MEASURE__TERMS) {
-                            measureChangeHandler.measureChanged(notification.getNotifier());
-                        }
-                        break;
-                    case Notification.REMOVE:
-                    case Notification.REMOVE_MANY:
-                        if (notification.getOldValue() instanceof BaseMeasure) {
-                            measureChangeHandler.measureRemoved(notification.getOldValue());
-                        } else if (notification.getOldValue() instanceof DerivedMeasure) {
-                            measureChangeHandler.measureRemoved(notification.getOldValue());
-                        } else if (notification.getOldValue() instanceof Collection) {
-                            ((Collection) notification.getOldValue()).forEach(oldValue -> {
-                                if (oldValue instanceof BaseMeasure) {
-                                    measureChangeHandler.measureRemoved(oldValue);
-                                } else if (oldValue instanceof DerivedMeasure) {
-                                    measureChangeHandler.measureRemoved(oldValue);
-                                }
-                            });
-                        } else if (notification.getFeatureID(DerivedMeasure.class) == MeasurePackage.DERIVED_MEASURE__TERMS) {
-                            measureChangeHandler.measureChanged(notification.getNotifier());
+        /**
+         * Get conversion table of a measure, tables are built on first conversion between units of the measure.
+         *
+         * @param measure measure
+         * @return conversion table, <code>null</code> if measure is not part of measure model
+         */
+        private ConversionTable getConversionTable(final Object measure) {
+            if (!unitsOfMeasureByNameOrSymbol.containsKey(measure)) {
+                return null;
+            }
+            return conversionTables.computeIfAbsent((Measure) measure, m -> new ConversionTable(m.getUnits()));
+        }
+
+        private Map<Unit, DoubleRate> getDoubleUnitRates() {
+            Map<Unit, DoubleRate> result = doubleUnitRates;
+            if (result == null) {
+                result = new HashMap<>();
+                for (final Unit unit : units) {
+                    if (unit.getRateDividend() != null && unit.getRateDivisor() != null && unit.getRateDivisor().signum() != 0) {
+                        final DoubleRate rate = DoubleRate.of(unit.getRateDividend(), unit.getRateDivisor());
+                        if (!rate.isExact()) {
+                            log.debug("Rate of unit {} is not exact as double: {}", unit.getName(), rate.getFactor());
                         }
-                        break;
+                        result.put(unit, rate);
+                    }
                 }
+                doubleUnitRates = result;
+            }
+            return result;
+        }
+
+        private static void addUnit(final Map<String, List<Unit>> unitsByNameOrSymbol, final Unit unit) {
+            unitsByNameOrSymbol.computeIfAbsent(unit.getName(), k -> new ArrayList<>()).add(unit);
+            if (unit.getSymbol() != null && !Objects.equals(unit.getSymbol(), unit.getName())) {
+                unitsByNameOrSymbol.computeIfAbsent(unit.getSymbol(), k -> new ArrayList<>()).add(unit);
             }
-        });
+        }
     }
 
-    @Override
-    public boolean isBaseMeasure(Measure measure) {
-        return measure instanceof BaseMeasure;
+    /**
+     * Rate as a <code>double</code> factor.
+     */
+    public static final class DoubleRate {
+
+        private final double factor;
+        private final boolean exact;
+
+        private DoubleRate(final double factor, final boolean exact) {
+            this.factor = factor;
+            this.exact = exact;
+        }
+
+        private static DoubleRate of(final BigDecimal dividend, final BigDecimal divisor) {
+            // positive divisor keeps direction of comparisons with products
+            final BigDecimal numerator = divisor.signum() < 0 ? dividend.negate() : dividend;
+            final BigDecimal denominator = divisor.abs();
+
+            double factor = numerator.divide(denominator, MathContext.DECIMAL128).doubleValue();
+            if (Double.isFinite(factor)) {
+                // quotient is rounded twice (to 34 digits, then to double), it might be rounded to the wrong neighbour
+                // if it is close to the midpoint of two doubles
+                final double lower = Math.nextDown(factor);
+                final double upper = Math.nextUp(factor);
+                final int comparedToLower = Double.isFinite(lower) ? compareToMidpoint(numerator, denominator, lower, factor) : 1;
+                final int comparedToUpper = Double.isFinite(upper) ? compareToMidpoint(numerator, denominator, factor, upper) : -1;
+                if (comparedToLower < 0 || comparedToLower == 0 && !isEven(factor)) {
+                    factor = lower;
+                } else if (comparedToUpper > 0 || comparedToUpper == 0 && !isEven(factor)) {
+                    factor = upper;
+                }
+            }
+            final boolean exact = Double.isFinite(factor)
+                    && new BigDecimal(factor).multiply(denominator).compareTo(numerator) == 0;
+            return new DoubleRate(factor, exact);
+        }
+
+        private static int compareToMidpoint(final BigDecimal numerator, final BigDecimal denominator,
+                                             final double lower, final double upper) {
+            // binary fractions (and their halves) are exact decimals
+            final BigDecimal midpoint = new BigDecimal(lower).add(new BigDecimal(upper)).divide(BigDecimal.valueOf(2));
+            return numerator.compareTo(midpoint.multiply(denominator));
+        }
+
+        private static boolean isEven(final double value) {
+            return (Double.doubleToRawLongBits(value) & 1L) == 0L;
+        }
+
+        /**
+         * Get factor (dividend / divisor, correctly rounded to the nearest <code>double</code> value, ties to even).
+         * Calculations with the factor are faster, but not exact unless {@link #isExact()} is <code>true</code>.
+         *
+         * @return factor
+         */
+        public double getFactor() {
+            return factor;
+        }
+
+        /**
+         * Check if factor is exactly the same as the decimal rate. Calculations with inexact factors might produce
+         * different results than decimal calculations.
+         *
+         * @return <code>true</code> if factor is exact
+         */
+        public boolean isExact() {
+            return exact;
+        }
+
+        @Override
+        public String toString() {
+            return factor + (exact ? "" : " (inexact)");
+        }
+    }
+
+    /**
+     * Conversion rates between each pair of units of a measure.
+     */
+    private static class ConversionTable {
+
+        private final Map<Unit, Integer> positions = new HashMap<>();
+        private final UnitFraction[][] rates;
+        private volatile DoubleRate[][] doubleRates;
+
+        private ConversionTable(final List<Unit> units) {
+            final List<Unit> convertibleUnits = units.stream()
+                    .filter(u -> u.getRateDividend() != null && u.getRateDivisor() != null
+                            && u.getRateDividend().signum() != 0 && u.getRateDivisor().signum() != 0)
+                    .collect(Collectors.toList());
+            rates = new UnitFraction[convertibleUnits.size()][convertibleUnits.size()];
+            for (int i = 0; i < convertibleUnits.size(); i++) {
+                final Unit from = convertibleUnits.get(i);
+                positions.put(from, i);
+                for (int j = 0; j < convertibleUnits.size(); j++) {
+                    final Unit to = convertibleUnits.get(j);
+                    rates[i][j] = reduce(from.getRateDividend().multiply(to.getRateDivisor()),
+                            from.getRateDivisor().multiply(to.getRateDividend()));
+                }
+            }
+        }
+
+        private Optional<UnitFraction> get(final Unit from, final Unit to) {
+            final Integer fromPosition = positions.get(from);
+            final Integer toPosition = positions.get(to);
+            return fromPosition != null && toPosition != null
+                    ? Optional.of(rates[fromPosition][toPosition])
+                    : Optional.empty();
+        }
+
+        private Optional<DoubleRate> getDouble(final Unit from, final Unit to) {
+            final Integer fromPosition = positions.get(from);
+            final Integer toPosition = positions.get(to);
+            return fromPosition != null && toPosition != null
+                    ? Optional.of(getDoubleRates()[fromPosition][toPosition])
+                    : Optional.empty();
+        }
+
+        private DoubleRate[][] getDoubleRates() {
+            DoubleRate[][] result = doubleRates;
+            if (result == null) {
+                result = new DoubleRate[rates.length][rates.length];
+                for (int i = 0; i < rates.length; i++) {
+                    for (int j = 0; j < rates.length; j++) {
+                        result[i][j] = DoubleRate.of(rates[i][j].getDividend(), rates[i][j].getDivisor());
+                    }
+                }
+                doubleRates = result;
+            }
+            return result;
+        }
     }
 
-    <T> Stream<T> getMeasureElement(final Class<T> clazz) {
-        final Iterable<Notifier> asmContents = resourceSet::getAllContents;
-        return StreamSupport.stream(asmContents.spliterator(), true)
-                .filter(e -> clazz.isAssignableFrom(e.getClass())).map(e -> (T) e);
+    /**
+     * Content adapter dropping lookup tables and notifying measure change handlers on measure model changes.
+     */
+    private class MeasureChangeAdapter extends EContentAdapter {
+
+        @Override
+        public void notifyChanged(final Notification notification) {
+            super.notifyChanged(notification);
+
+            if (notification.isTouch()) {
+                return;
+            }
+            measureIndex = null;
+            modificationCount.incrementAndGet();
+
+            measureChangeHandlers.forEach(measureChangeHandler -> notifyMeasureChangeHandler(measureChangeHandler, notification));
+        }
+
+        private void notifyMeasureChangeHandler(final MeasureChangedHandler measureChangeHandler, final Notification notification) {
+            switch (notification.getEventType()) {
+                case Notification.ADD:
+                case Notification.ADD_MANY:
+                    if (notification.getNewValue() instanceof BaseMeasure) {
+                        measureChangeHandler.measureAdded(notification.getNewValue());
+                    } else if (notification.getNewValue() instanceof DerivedMeasure) {
+                        measureChangeHandler.measureAdded(notification.getNewValue());
+                    } else if (notification.getNewValue() instanceof Collection) {
+                        ((Collection) notification.getNewValue()).forEach(newValue -> {
+                            if (newValue instanceof BaseMeasure) {
+                                measureChangeHandler.measureAdded(newValue);
+                            } else if (newValue instanceof DerivedMeasure) {
+                                measureChangeHandler.measureAdded(newValue);
+                            }
+                        });
+                    } else if (notification.getFeatureID(DerivedMeasure.class) == MeasurePackage.DERIVED_MEASURE__TERMS) {
+                        measureChangeHandler.measureChanged(notification.getNotifier());
+                    }
+                    break;
+                case Notification.REMOVE:
+                case Notification.REMOVE_MANY:
+                    if (notification.getOldValue() instanceof BaseMeasure) {
+                        measureChangeHandler.measureRemoved(notification.getOldValue());
+                    } else if (notification.getOldValue() instanceof DerivedMeasure) {
+                        measureChangeHandler.measureRemoved(notification.getOldValue());
+                    } else if (notification.getOldValue() instanceof Collection) {
+                        ((Collection) notification.getOldValue()).forEach(oldValue -> {
+                            if (oldValue instanceof BaseMeasure) {
+                                measureChangeHandler.measureRemoved(oldValue);
+                            } else if (oldValue instanceof DerivedMeasure) {
+                                measureChangeHandler.measureRemoved(oldValue);
+                            }
+                        });
+                    } else if (notification.getFeatureID(DerivedMeasure.class) == MeasurePackage.DERIVED_MEASURE__TERMS) {
+                        measureChangeHandler.measureChanged(notification.getNotifier());
+                    }
+                    break;
+            }
+        }
     }
 }
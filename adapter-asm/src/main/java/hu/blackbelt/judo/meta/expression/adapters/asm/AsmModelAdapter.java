@@ -25,7 +25,6 @@ import hu.blackbelt.judo.meta.asm.runtime.AsmUtils.OperationBehaviour;
 import hu.blackbelt.judo.meta.expression.*;
 import hu.blackbelt.judo.meta.expression.adapters.ModelAdapter;
 import hu.blackbelt.judo.meta.expression.adapters.measure.MeasureAdapter;
-import hu.blackbelt.judo.meta.expression.adapters.measure.MeasureProvider;
 import hu.blackbelt.judo.meta.expression.constant.MeasuredDecimal;
 import hu.blackbelt.judo.meta.expression.numeric.DecimalVariableReference;
 import hu.blackbelt.judo.meta.expression.numeric.NumericAttribute;
@@ -38,8 +37,8 @@ import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.slf4j.Logger;
 
-import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -59,14 +58,37 @@ public class AsmModelAdapter implements
 
     private static Pattern MEASURE_NAME_PATTERN = Pattern.compile("^(.*)\\.([^\\.]+)$");
 
-    private final MeasureProvider<Measure, Unit> measureProvider;
+    private final AsmMeasureProvider measureProvider;
     private final MeasureAdapter<EClassifier, EDataType, EEnum, EClass, EAttribute, EReference, EClass, EAttribute, EReference, EClassifier, Measure, Unit> measureAdapter;
 
     private final AsmUtils asmUtils;
+    private final AsmModelIndex modelIndex;
+    private final AsmModelIndex.Tables tables;
+
+    private final Map<EAttribute, CachedValue<Optional<Unit>>> attributeUnits = new ConcurrentHashMap<>();
+    private final Map<EDataType, CachedValue<MeasuredType>> measuredTypes = new ConcurrentHashMap<>();
+    private volatile long prunedRemovalCount;
 
     public AsmModelAdapter(final ResourceSet asmResourceSet, final ResourceSet measureResourceSet) {
+        this(asmResourceSet, measureResourceSet, false);
+    }
+
+    /**
+     * Create model adapter.
+     *
+     * @param asmResourceSet     ASM resource set
+     * @param measureResourceSet measure resource set
+     * @param snapshot           answer queries from an immutable snapshot of ASM and measure lookup tables instead of
+     *                           the current ones
+     */
+    AsmModelAdapter(final ResourceSet asmResourceSet, final ResourceSet measureResourceSet, final boolean snapshot) {
         asmUtils = new AsmUtils(asmResourceSet);
+        modelIndex = AsmModelIndex.of(asmResourceSet);
+        tables = snapshot ? modelIndex.snapshot() : modelIndex.getTables();
         measureProvider = new AsmMeasureProvider(measureResourceSet);
+        if (snapshot) {
+            measureProvider.freeze();
+        }
         measureAdapter = new MeasureAdapter<>(measureProvider, this);
     }
 
@@ -85,11 +107,10 @@ public class AsmModelAdapter implements
 
     @Override
     public Optional<TypeName> buildTypeName(final EClassifier namespaceElement) {
-        return getAsmElement(EPackage.class).filter(ns -> ns.getEClassifiers().contains(namespaceElement))
+        return tables.getNamespace(namespaceElement)
                 .map(ns -> newTypeNameBuilder()
-                        .withNamespace(AsmUtils.getPackageFQName(ns).replace(".", NAMESPACE_SEPARATOR))
-                        .withName(namespaceElement.getName()).build())
-                .findAny();
+                        .withNamespace(ns.replace(".", NAMESPACE_SEPARATOR))
+                        .withName(namespaceElement.getName()).build());
     }
 
     @Override
@@ -103,13 +124,11 @@ public class AsmModelAdapter implements
 
     @Override
     public Optional<? extends EClassifier> get(final TypeName elementName) {
-        final Optional<EPackage> namespace = getAsmElement(EPackage.class).filter(p -> Objects
-                .equals(AsmUtils.getPackageFQName(p), elementName.getNamespace().replace(NAMESPACE_SEPARATOR, ".")))
-                .findAny();
+        final Optional<Map<String, EClassifier>> namespace = tables
+                .getClassifiers(elementName.getNamespace().replace(NAMESPACE_SEPARATOR, "."));
 
         if (namespace.isPresent()) {
-            return namespace.get().getEClassifiers().stream()
-                    .filter(e -> Objects.equals(e.getName(), elementName.getName())).findAny();
+            return Optional.ofNullable(namespace.get().get(elementName.getName()));
         } else {
             if (elementName.getNamespace() != null && !"".equals(elementName.getNamespace().trim())) {
                 log.warn("Namespace not found: {}", elementName.getNamespace());
@@ -141,19 +160,41 @@ public class AsmModelAdapter implements
 
     @Override
     public Optional<? extends Measure> getMeasureOfType(EDataType primitiveType) {
-        Optional<? extends Measure> measure = AsmUtils.getExtensionAnnotationCustomValue(primitiveType, "measured", "measure", false)
-                .flatMap(AsmModelAdapter::parseMeasureName)
-                .flatMap(this::get);
-        return measure;
+        return getMeasuredType(primitiveType).measure;
     }
 
     @Override
     public Optional<Unit> getUnitOfType(EDataType primitiveType) {
-        Optional<Unit> unit = getMeasureOfType(primitiveType)
-                .flatMap(measure -> AsmUtils.getExtensionAnnotationCustomValue(primitiveType, "measured", "unit", false)
-                        .flatMap(unitName -> measureAdapter.getUnit(Optional.of(measure.getNamespace()), Optional.of(measure.getName()), unitName)
+        return getMeasuredType(primitiveType).unit;
+    }
+
+    private MeasuredType getMeasuredType(final EDataType primitiveType) {
+        if (!modelIndex.isPartOfModel(primitiveType)) {
+            // changes of types outside of ASM model are not notified
+            return resolveMeasuredType(primitiveType);
+        }
+        pruneCaches();
+        final long asmStamp = modelIndex.getModificationStamp(primitiveType);
+        final long measureStamp = measureProvider.getModificationCount();
+        final CachedValue<MeasuredType> cachedMeasuredType = measuredTypes.get(primitiveType);
+        if (cachedMeasuredType != null && cachedMeasuredType.isValid(asmStamp, measureStamp)) {
+            return cachedMeasuredType.value;
+        }
+
+        final MeasuredType measuredType = resolveMeasuredType(primitiveType);
+        measuredTypes.put(primitiveType, new CachedValue<>(measuredType, asmStamp, measureStamp));
+        return measuredType;
+    }
+
+    private MeasuredType resolveMeasuredType(final EDataType primitiveType) {
+        final Optional<? extends Measure> measure = AsmUtils.getExtensionAnnotationCustomValue(primitiveType, "measured", "measure", false)
+                .flatMap(AsmModelAdapter::parseMeasureName)
+                .flatMap(this::get);
+        final Optional<Unit> unit = measure
+                .flatMap(m -> AsmUtils.getExtensionAnnotationCustomValue(primitiveType, "measured", "unit", false)
+                        .flatMap(unitName -> measureAdapter.getUnit(Optional.of(m.getNamespace()), Optional.of(m.getName()), unitName)
                         ));
-        return unit;
+        return new MeasuredType(measure, unit);
     }
 
     @Override
@@ -163,7 +204,46 @@ public class AsmModelAdapter implements
 
     @Override
     public UnitFraction getUnitRates(Unit unit) {
-        return new UnitFraction(unit.getRateDividend(), unit.getRateDivisor());
+        return measureProvider.getUnitRates(unit);
+    }
+
+    /**
+     * Get conversion rate between two units of the same measure (from conversion tables of measures).
+     *
+     * @param from source unit
+     * @param to   target unit
+     * @return conversion rate, empty if units are not belonging to the same measure
+     * @see AsmMeasureProvider#getConversionRate(Unit, Unit)
+     */
+    public Optional<UnitFraction> getConversionRate(final Unit from, final Unit to) {
+        return measureProvider.getConversionRate(from, to);
+    }
+
+    /**
+     * Get rate of a unit as a <code>double</code> factor (for evaluations preferring speed over exactness).
+     *
+     * @param unit unit
+     * @return rate of unit, empty if rates of unit are not defined. Use decimal rates if
+     * {@link AsmMeasureProvider.DoubleRate#isExact()} is <code>false</code> and exact results are required.
+     * @see AsmMeasureProvider#getDoubleUnitRate(Unit)
+     */
+    public Optional<AsmMeasureProvider.DoubleRate> getDoubleUnitRate(final Unit unit) {
+        return measureProvider.getDoubleUnitRate(unit);
+    }
+
+    /**
+     * Get conversion rate between two units of the same measure as a <code>double</code> factor (for evaluations
+     * preferring speed over exactness).
+     *
+     * @param from source unit
+     * @param to   target unit
+     * @return conversion rate, empty if units are not belonging to the same measure. Use
+     * {@link #getConversionRate(Unit, Unit)} if {@link AsmMeasureProvider.DoubleRate#isExact()} is <code>false</code>
+     * and exact results are required.
+     * @see AsmMeasureProvider#getDoubleConversionRate(Unit, Unit)
+     */
+    public Optional<AsmMeasureProvider.DoubleRate> getDoubleConversionRate(final Unit from, final Unit to) {
+        return measureProvider.getDoubleConversionRate(from, to);
     }
 
     @Override
@@ -171,59 +251,17 @@ public class AsmModelAdapter implements
         if (!(unit instanceof DurationUnit)) {
             throw new IllegalArgumentException("Unit must be duration");
         };
-        DurationUnit durationUnit = (DurationUnit) unit;
-        // examples in comments when unit is day, the base unit is minute
-        // example2 unit is millisecond, the base unit is minute
-        BigDecimal dividendToBase = durationUnit.getRateDividend(); // 1440 |---| 1
-        BigDecimal divisorToBase = durationUnit.getRateDivisor();  // 1 |---| 60000
-        DurationType target;
-        if (hu.blackbelt.judo.meta.measure.DurationType.NANOSECOND.equals(durationUnit.getType())) {
-            target = DurationType.NANOSECOND;
-        } else if (hu.blackbelt.judo.meta.measure.DurationType.MICROSECOND.equals(durationUnit.getType())) {
-            target = DurationType.MICROSECOND;
-        } else if (hu.blackbelt.judo.meta.measure.DurationType.MILLISECOND.equals(durationUnit.getType())) {
-            target = DurationType.MILLISECOND;
-        } else if (hu.blackbelt.judo.meta.measure.DurationType.SECOND.equals(durationUnit.getType())) {
-            target = DurationType.SECOND;
-        } else if (hu.blackbelt.judo.meta.measure.DurationType.MINUTE.equals(durationUnit.getType())) {
-            target = DurationType.MINUTE;
-        } else if (hu.blackbelt.judo.meta.measure.DurationType.HOUR.equals(durationUnit.getType())) {
-            target = DurationType.HOUR;
-        } else if (hu.blackbelt.judo.meta.measure.DurationType.DAY.equals(durationUnit.getType())) {
-            target = DurationType.DAY;
-        } else if (hu.blackbelt.judo.meta.measure.DurationType.WEEK.equals(durationUnit.getType())) {
-            target = DurationType.WEEK;
-        } else {
-            throw new IllegalArgumentException("No duration ration is valid for month and year.");
-        }
-        if (targetType.equals(DurationType.SECOND)) {
-            UnitFraction secondFraction = target.getSecondUnitFraction(); // 86400/1 |---| 1/1000
-            // however, we need to return the ratio calculated in the base unit. The base unit is minute, so the result must be 60/1
-            // so the result is: secondFraction * divisorToBase/dividendToBase, that is
-            BigDecimal newDividend = secondFraction.getDividend().multiply(divisorToBase);
-            BigDecimal newDivisor = secondFraction.getDivisor().multiply(dividendToBase);
-            return new UnitFraction(newDividend, newDivisor);
-        } else if (targetType.equals(DurationType.DAY)) {
-            UnitFraction dayFraction = target.getDayUnitFraction(); // 86400/1 |---| 1/1000
-            // however, we need to return the ratio calculated in the base unit. The base unit is minute, so the result must be 60/1
-            // so the result is: dayFraction * divisorToBase/dividendToBase, that is
-            BigDecimal newDividend = dayFraction.getDividend().multiply(divisorToBase);
-            BigDecimal newDivisor = dayFraction.getDivisor().multiply(dividendToBase);
-            return new UnitFraction(newDividend, newDivisor);
-        } else {
-            throw new IllegalArgumentException("Only second and day duration type is supported.");
-        }
-
+        return measureProvider.getBaseDurationRatio((DurationUnit) unit, targetType);
     }
 
     @Override
     public Optional<? extends EReference> getReference(final EClass clazz, final String referenceName) {
-        return clazz.getEAllReferences().stream().filter(r -> Objects.equals(r.getName(), referenceName)).findAny();
+        return tables.getReference(clazz, referenceName);
     }
 
     @Override
     public Optional<? extends EReference> getTransferRelation(EClass transferObject, String relationName) {
-        return transferObject.getEAllReferences().stream().filter(r -> Objects.equals(r.getName(), relationName)).findAny();
+        return tables.getReference(transferObject, relationName);
     }
 
     @Override
@@ -278,12 +316,12 @@ public class AsmModelAdapter implements
 
     @Override
     public Optional<? extends EAttribute> getAttribute(final EClass clazz, final String attributeName) {
-        return clazz.getEAllAttributes().stream().filter(r -> Objects.equals(r.getName(), attributeName)).findAny();
+        return tables.getAttribute(clazz, attributeName);
     }
 
     @Override
     public Optional<? extends EAttribute> getTransferAttribute(EClass transferObject, String attributeName) {
-        return transferObject.getEAllAttributes().stream().filter(r -> Objects.equals(r.getName(), attributeName)).findAny();
+        return tables.getAttribute(transferObject, attributeName);
     }
 
     @Override
@@ -308,11 +346,7 @@ public class AsmModelAdapter implements
         } else if (AsmUtils.equals(included, mixin)) {
             return true;
         }
-        return included.getEAllAttributes().stream().allMatch(ia -> mixin.getEAllAttributes().stream().anyMatch(ma -> Objects.equals(ma.getName(), ia.getName())
-                && AsmUtils.equals(ma.getEAttributeType(), ia.getEAttributeType())))
-                && included.getEAllReferences().stream().allMatch(ir -> mixin.getEAllReferences().stream().anyMatch(mr -> Objects.equals(mr.getName(), ir.getName())
-                && mr.getLowerBound() == ir.getLowerBound() && mr.getUpperBound() == ir.getUpperBound()
-                && AsmUtils.equals(mr.getEReferenceType(), ir.getEReferenceType())));
+        return tables.isMixin(included, mixin);
     }
 
     @Override
@@ -443,19 +477,17 @@ public class AsmModelAdapter implements
 
     @Override
     public EList<EClass> getAllEntityTypes() {
-        return ECollections
-                .asEList(getAsmElement(EClass.class).filter(c -> AsmUtils.isEntityType(c)).collect(toList()));
+        return tables.getEntityTypes();
     }
 
     @Override
     public EList<EEnum> getAllEnums() {
-        return ECollections
-                .asEList(getAsmElement(EEnum.class).filter(e -> AsmUtils.isEnumeration(e)).collect(toList()));
+        return tables.getEnums();
     }
 
     @Override
     public EList<EDataType> getAllPrimitiveTypes() {
-        return ECollections.asEList(getAsmElement(EDataType.class).collect(toList()));
+        return tables.getPrimitiveTypes();
     }
 
     @Override
@@ -556,13 +588,29 @@ public class AsmModelAdapter implements
         return ECollections.asEList(measureProvider.getMeasures().collect(toList()));
     }
 
+    /**
+     * Build lookup tables of ASM and measure models and resolve measures and units of all primitive types and
+     * attributes.
+     *
+     * @see ConcurrentAsmModelAdapter
+     */
+    void prepare() {
+        modelIndex.prepare();
+        measureProvider.prepare();
+        tables.getPrimitiveTypes().forEach(this::getMeasuredType);
+        asmUtils.all(EAttribute.class).forEach(this::getCachedUnit);
+    }
+
+    long getMeasureModificationCount() {
+        return measureProvider.getModificationCount();
+    }
+
     protected <T> Stream<T> getAsmElement(final Class<T> clazz) {
         return asmUtils.all(clazz);
     }
 
     Optional<Unit> getUnit(final EClass objectType, final String attributeName) {
-        final Optional<Optional<Unit>> unit = objectType.getEAllAttributes().stream()
-                .filter(a -> Objects.equals(a.getName(), attributeName)).map(a -> getUnit(a)).findAny();
+        final Optional<Optional<Unit>> unit = tables.getAttribute(objectType, attributeName).map(a -> getUnit(a));
         if (unit.isPresent()) {
             return unit.get();
         } else {
@@ -572,6 +620,38 @@ public class AsmModelAdapter implements
     }
 
     public Optional<Unit> getUnit(final EAttribute attribute) {
+        return getCachedUnit(attribute);
+    }
+
+    private Optional<Unit> getCachedUnit(final EAttribute attribute) {
+        if (!modelIndex.isPartOfModel(attribute)
+                || attribute.getEAttributeType() != null && !modelIndex.isPartOfModel(attribute.getEAttributeType())) {
+            // changes of attributes and types outside of ASM model are not notified
+            return resolveUnit(attribute);
+        }
+        pruneCaches();
+        final long asmStamp = Math.max(modelIndex.getModificationStamp(attribute), modelIndex.getModificationStamp(attribute.getEAttributeType()));
+        final long measureStamp = measureProvider.getModificationCount();
+        final CachedValue<Optional<Unit>> cachedUnit = attributeUnits.get(attribute);
+        if (cachedUnit != null && cachedUnit.isValid(asmStamp, measureStamp)) {
+            return cachedUnit.value;
+        }
+
+        final Optional<Unit> unit = resolveUnit(attribute);
+        attributeUnits.put(attribute, new CachedValue<>(unit, asmStamp, measureStamp));
+        return unit;
+    }
+
+    private void pruneCaches() {
+        final long removalCount = modelIndex.getRemovalCount();
+        if (removalCount != prunedRemovalCount) {
+            prunedRemovalCount = removalCount;
+            attributeUnits.keySet().removeIf(a -> !modelIndex.isPartOfModel(a));
+            measuredTypes.keySet().removeIf(t -> !modelIndex.isPartOfModel(t));
+        }
+    }
+
+    private Optional<Unit> resolveUnit(final EAttribute attribute) {
         if (AsmUtils.isNumeric(attribute.getEAttributeType())) {
             final Optional<String> unitNameOrSymbol = AsmUtils.getExtensionAnnotationCustomValue(attribute,
                     "constraints", "unit", false);
@@ -610,6 +690,10 @@ public class AsmModelAdapter implements
 
     @Override
     public EList<EClass> getContainerTypesOf(final EClass clazz) {
+        if (modelIndex.isPartOfModel(clazz)) {
+            return ECollections.asEList(new ArrayList<>(tables.getContainerTypes(clazz)));
+        }
+        // class is not part of ASM model, find containers of structurally equal classes
         return ECollections.asEList(asmUtils.all(EClass.class)
                 .filter(container -> container.getEAllContainments().stream()
                         .anyMatch(c -> EcoreUtil.equals(c.getEReferenceType(), clazz)))
@@ -620,20 +704,17 @@ public class AsmModelAdapter implements
 
     @Override
     public EList<EClass> getAllTransferObjectTypes() {
-        return ECollections.asEList(getAsmElement(EClass.class)
-                .filter(c -> !AsmUtils.isEntityType(c) || asmUtils.isMappedTransferObjectType(c)).collect(toList()));
+        return tables.getTransferObjectTypes();
     }
 
     @Override
     public EList<EClass> getAllMappedTransferObjectTypes() {
-        return ECollections
-                .asEList(getAsmElement(EClass.class).filter(asmUtils::isMappedTransferObjectType).collect(toList()));
+        return tables.getMappedTransferObjectTypes();
     }
 
     @Override
     public EList<EClass> getAllUnmappedTransferObjectTypes() {
-        return ECollections.asEList(getAsmElement(EClass.class)
-                .filter(c -> !AsmUtils.isEntityType(c) && !asmUtils.isMappedTransferObjectType(c)).collect(toList()));
+        return tables.getUnmappedTransferObjectTypes();
     }
 
     public AsmUtils getAsmUtils() {
@@ -764,4 +845,37 @@ public class AsmModelAdapter implements
         }
     }
 
+    /**
+     * Measure and unit of a measured primitive type.
+     */
+    private static class MeasuredType {
+
+        private final Optional<? extends Measure> measure;
+        private final Optional<Unit> unit;
+
+        private MeasuredType(final Optional<? extends Measure> measure, final Optional<Unit> unit) {
+            this.measure = measure;
+            this.unit = unit;
+        }
+    }
+
+    /**
+     * Value resolved from ASM and measure models, valid while modification stamps of its sources are unchanged.
+     */
+    private static class CachedValue<T> {
+
+        private final T value;
+        private final long asmStamp;
+        private final long measureStamp;
+
+        private CachedValue(final T value, final long asmStamp, final long measureStamp) {
+            this.value = value;
+            this.asmStamp = asmStamp;
+            this.measureStamp = measureStamp;
+        }
+
+        private boolean isValid(final long asmStamp, final long measureStamp) {
+            return this.asmStamp == asmStamp && this.measureStamp == measureStamp;
+        }
+    }
 }
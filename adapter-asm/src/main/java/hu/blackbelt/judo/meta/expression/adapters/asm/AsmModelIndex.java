@@ -0,0 +1,560 @@
+package hu.blackbelt.judo.meta.expression.adapters.asm;
+
+/*-
+ * #%L
+ * JUDO :: Expression :: ASM Adapter Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.asm.runtime.AsmUtils;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.util.ECollections;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EEnum;
+import org.eclipse.emf.ecore.EModelElement;
+import org.eclipse.emf.ecore.ENamedElement;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.ETypedElement;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Lookup tables of an ASM model, shared by all model adapters created on the same resource set.
+ *
+ * Tables are built lazily on first access and dropped when the ASM model changes.
+ */
+class AsmModelIndex extends EContentAdapter {
+
+    private final ResourceSet resourceSet;
+    private final AsmUtils asmUtils;
+
+    private final AtomicLong modificationCount = new AtomicLong();
+    private final AtomicLong removalCount = new AtomicLong();
+    private final Map<EObject, Long> modificationStamps = new ConcurrentHashMap<>();
+
+    private final Map<EClass, FeatureTable> featureTables = new ConcurrentHashMap<>();
+
+    private volatile ClassifierIndex classifierIndex;
+
+    private final Tables tables = new Tables() {
+        @Override
+        ClassifierIndex getClassifierIndex() {
+            return AsmModelIndex.this.getClassifierIndex();
+        }
+
+        @Override
+        FeatureTable getFeatureTable(final EClass clazz) {
+            return AsmModelIndex.this.getFeatureTable(clazz);
+        }
+    };
+
+    private AsmModelIndex(final ResourceSet resourceSet) {
+        this.resourceSet = resourceSet;
+        asmUtils = new AsmUtils(resourceSet);
+    }
+
+    /**
+     * Get index of a given ASM resource set, index is created and attached to resource set if not exists yet.
+     *
+     * @param resourceSet ASM resource set
+     * @return ASM model index
+     */
+    static AsmModelIndex of(final ResourceSet resourceSet) {
+        synchronized (resourceSet.eAdapters()) {
+            final AsmModelIndex existing = (AsmModelIndex) EcoreUtil.getExistingAdapter(resourceSet, AsmModelIndex.class);
+            if (existing != null) {
+                return existing;
+            }
+            final AsmModelIndex index = new AsmModelIndex(resourceSet);
+            resourceSet.eAdapters().add(index);
+            return index;
+        }
+    }
+
+    @Override
+    public boolean isAdapterForType(final Object type) {
+        return type == AsmModelIndex.class;
+    }
+
+    @Override
+    public void notifyChanged(final Notification notification) {
+        super.notifyChanged(notification);
+
+        if (!notification.isTouch()) {
+            invalidate();
+
+            final long stamp = modificationCount.incrementAndGet();
+            if (notification.getNotifier() instanceof EObject) {
+                final EObject modifiedElement = getModifiedElement((EObject) notification.getNotifier());
+                if (modifiedElement != null) {
+                    modificationStamps.put(modifiedElement, stamp);
+                }
+                if (notification.getFeatureID(ENamedElement.class) == EcorePackage.ENAMED_ELEMENT__NAME
+                        && (notification.getNotifier() instanceof EClassifier || notification.getNotifier() instanceof EPackage)) {
+                    // structural signatures refer to fully qualified names of types
+                    featureTables.clear();
+                } else if (modifiedElement instanceof EClass) {
+                    dropFeatureTables((EClass) modifiedElement);
+                } else if (modifiedElement instanceof EStructuralFeature && ((EStructuralFeature) modifiedElement).getEContainingClass() != null) {
+                    dropFeatureTables(((EStructuralFeature) modifiedElement).getEContainingClass());
+                }
+            }
+            if (notification.getFeature() instanceof EReference && ((EReference) notification.getFeature()).isContainment()) {
+                // changes of detached elements are not notified, forget removed ones and stamp (re)added ones
+                getContainedValues(notification.getOldValue()).forEach(this::forget);
+                getContainedValues(notification.getNewValue()).forEach(e -> stamp(e, stamp));
+            }
+        }
+    }
+
+    /**
+     * Build all lookup tables and initialize structures of ASM model that EMF computes lazily (derived feature lists,
+     * instance classes and annotation details), so they are not initialized concurrently by readers.
+     */
+    void prepare() {
+        resourceSet.getAllContents().forEachRemaining(element -> {
+            if (element instanceof EClass) {
+                final EClass clazz = (EClass) element;
+                clazz.getEAllSuperTypes();
+                clazz.getEAllStructuralFeatures();
+                clazz.getEAllAttributes();
+                clazz.getEAllReferences();
+                clazz.getEAllContainments();
+                clazz.getEAllOperations();
+                getFeatureTable(clazz);
+            } else if (element instanceof EDataType) {
+                ((EDataType) element).getInstanceClass();
+            }
+            if (element instanceof EModelElement) {
+                ((EModelElement) element).getEAnnotations().forEach(a -> a.getDetails().containsKey(null));
+            }
+        });
+        getClassifierIndex();
+    }
+
+    /**
+     * Get number of changes of ASM model since index is created.
+     *
+     * @return modification count
+     */
+    long getModificationCount() {
+        return modificationCount.get();
+    }
+
+    /**
+     * Get number of elements removed from ASM model since index is created. Caches keyed by model elements can be
+     * pruned when it is changed.
+     *
+     * @return removal count
+     */
+    long getRemovalCount() {
+        return removalCount.get();
+    }
+
+    /**
+     * Get modification stamp of a typed element or classifier. Stamp is changed when the element or any of its
+     * contents (ie. annotations) are changed.
+     *
+     * @param element typed element or classifier
+     * @return modification stamp
+     */
+    long getModificationStamp(final EObject element) {
+        return element != null ? modificationStamps.getOrDefault(element, 0L) : 0L;
+    }
+
+    /**
+     * Get current lookup tables of ASM model, tables are built lazily and dropped when ASM model changes.
+     *
+     * @return lookup tables
+     */
+    Tables getTables() {
+        return tables;
+    }
+
+    /**
+     * Take an immutable snapshot of lookup tables. Changes of ASM model are not visible to the snapshot. Features of
+     * classes are shared with the index (they are not changed after built), results of mixin checks are cached by the
+     * snapshot separately.
+     *
+     * @return lookup tables
+     */
+    Tables snapshot() {
+        final ClassifierIndex index = getClassifierIndex();
+        final Map<EClass, FeatureTable> tables = new HashMap<>();
+        index.namespacesByClassifier.keySet().stream()
+                .filter(EClass.class::isInstance)
+                .map(EClass.class::cast)
+                .forEach(clazz -> tables.put(clazz, new FeatureTable(getFeatureTable(clazz))));
+        return new Snapshot(index, tables);
+    }
+
+    boolean isPartOfModel(final EObject element) {
+        return element.eResource() != null && element.eResource().getResourceSet() == resourceSet;
+    }
+
+    private FeatureTable getFeatureTable(final EClass clazz) {
+        if (!isPartOfModel(clazz)) {
+            // changes of classes outside of ASM model are not notified
+            return new FeatureTable(clazz);
+        }
+        return featureTables.computeIfAbsent(clazz, FeatureTable::new);
+    }
+
+    private void dropFeatureTables(final EClass clazz) {
+        featureTables.keySet().removeIf(c -> c == clazz || c.getEAllSuperTypes().contains(clazz));
+    }
+
+    private void invalidate() {
+        classifierIndex = null;
+    }
+
+    private void forget(final EObject removedElement) {
+        final Set<EObject> removedElements = new HashSet<>();
+        removedElements.add(removedElement);
+        removedElement.eAllContents().forEachRemaining(removedElements::add);
+        modificationStamps.keySet().removeAll(removedElements);
+        featureTables.keySet().removeAll(removedElements);
+        featureTables.values().forEach(t -> t.mixinChecks.keySet().removeAll(removedElements));
+        removalCount.incrementAndGet();
+    }
+
+    private void stamp(final EObject addedElement, final long stamp) {
+        if (addedElement instanceof ETypedElement || addedElement instanceof EClassifier) {
+            modificationStamps.put(addedElement, stamp);
+        }
+        addedElement.eAllContents().forEachRemaining(e -> {
+            if (e instanceof ETypedElement || e instanceof EClassifier) {
+                modificationStamps.put(e, stamp);
+            }
+        });
+    }
+
+    private static List<EObject> getContainedValues(final Object value) {
+        if (value instanceof EObject) {
+            return Collections.singletonList((EObject) value);
+        } else if (value instanceof Collection) {
+            return ((Collection<?>) value).stream()
+                    .filter(EObject.class::isInstance)
+                    .map(EObject.class::cast)
+                    .collect(toList());
+        } else {
+            return Collections.emptyList();
+        }
+    }
+
+    private static EObject getModifiedElement(final EObject notifier) {
+        EObject element = notifier;
+        while (element != null && !(element instanceof ETypedElement || element instanceof EClassifier)) {
+            element = element.eContainer();
+        }
+        return element;
+    }
+
+    private ClassifierIndex getClassifierIndex() {
+        final long stamp = modificationCount.get();
+        ClassifierIndex index = classifierIndex;
+        if (index == null || index.modificationStamp != stamp) {
+            // index built concurrently with a change might be published after invalidation, it is checked by stamp
+            index = new ClassifierIndex(stamp, asmUtils, asmUtils.all(EPackage.class).collect(toList()));
+            if (modificationCount.get() == stamp) {
+                classifierIndex = index;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Lookup tables of ASM model: classifiers by name, container types, lists of types and features of classes.
+     */
+    abstract static class Tables {
+
+        abstract ClassifierIndex getClassifierIndex();
+
+        abstract FeatureTable getFeatureTable(EClass clazz);
+
+        /**
+         * Get classifiers of a package by name.
+         *
+         * @param packageFqName fully qualified name of package (separated by dots)
+         * @return classifiers by name, empty if package is not found
+         */
+        Optional<Map<String, EClassifier>> getClassifiers(final String packageFqName) {
+            return Optional.ofNullable(getClassifierIndex().classifiersByNamespace.get(packageFqName));
+        }
+
+        /**
+         * Get fully qualified name of package containing a given classifier.
+         *
+         * @param classifier classifier
+         * @return package name (separated by dots), empty if classifier is not part of ASM model
+         */
+        Optional<String> getNamespace(final EClassifier classifier) {
+            return Optional.ofNullable(getClassifierIndex().namespacesByClassifier.get(classifier));
+        }
+
+        /**
+         * Get attribute of a class (including inherited attributes) by name.
+         *
+         * @param clazz class
+         * @param name  attribute name
+         * @return attribute, empty if class has no attribute with the given name
+         */
+        Optional<EAttribute> getAttribute(final EClass clazz, final String name) {
+            return Optional.ofNullable(getFeatureTable(clazz).attributes.get(name));
+        }
+
+        /**
+         * Get reference of a class (including inherited references) by name.
+         *
+         * @param clazz class
+         * @param name  reference name
+         * @return reference, empty if class has no reference with the given name
+         */
+        Optional<EReference> getReference(final EClass clazz, final String name) {
+            return Optional.ofNullable(getFeatureTable(clazz).references.get(name));
+        }
+
+        /**
+         * Check if all attributes and references of a class are included by another class (with the same name, type and
+         * multiplicity).
+         *
+         * @param included class of which features must be included
+         * @param mixin    class that must include features
+         * @return <code>true</code> if mixin includes all features
+         */
+        boolean isMixin(final EClass included, final EClass mixin) {
+            final FeatureTable includedTable = getFeatureTable(included);
+            final FeatureTable mixinTable = getFeatureTable(mixin);
+
+            final MixinCheck cachedCheck = includedTable.mixinChecks.get(mixin);
+            if (cachedCheck != null && cachedCheck.mixinTable == mixinTable) {
+                return cachedCheck.result;
+            }
+
+            final boolean result = mixinTable.attributeSignatures.containsAll(includedTable.attributeSignatures)
+                    && mixinTable.referenceSignatures.containsAll(includedTable.referenceSignatures);
+            includedTable.mixinChecks.put(mixin, new MixinCheck(mixinTable, result));
+            return result;
+        }
+
+        /**
+         * Get classes containing a given class (including supertypes of containers).
+         *
+         * @param clazz contained class (part of ASM model)
+         * @return container classes
+         */
+        List<EClass> getContainerTypes(final EClass clazz) {
+            return getClassifierIndex().containerTypesByContainedType.getOrDefault(clazz, Collections.emptyList());
+        }
+
+        EList<EClass> getEntityTypes() {
+            return getClassifierIndex().entityTypes;
+        }
+
+        EList<EClass> getTransferObjectTypes() {
+            return getClassifierIndex().transferObjectTypes;
+        }
+
+        EList<EClass> getMappedTransferObjectTypes() {
+            return getClassifierIndex().mappedTransferObjectTypes;
+        }
+
+        EList<EClass> getUnmappedTransferObjectTypes() {
+            return getClassifierIndex().unmappedTransferObjectTypes;
+        }
+
+        EList<EEnum> getEnums() {
+            return getClassifierIndex().enums;
+        }
+
+        EList<EDataType> getPrimitiveTypes() {
+            return getClassifierIndex().primitiveTypes;
+        }
+    }
+
+    /**
+     * Lookup tables that are not changed when ASM model changes.
+     */
+    private static class Snapshot extends Tables {
+
+        private final ClassifierIndex classifierIndex;
+        private final Map<EClass, FeatureTable> featureTables;
+
+        private Snapshot(final ClassifierIndex classifierIndex, final Map<EClass, FeatureTable> featureTables) {
+            this.classifierIndex = classifierIndex;
+            this.featureTables = featureTables;
+        }
+
+        @Override
+        ClassifierIndex getClassifierIndex() {
+            return classifierIndex;
+        }
+
+        @Override
+        FeatureTable getFeatureTable(final EClass clazz) {
+            final FeatureTable featureTable = featureTables.get(clazz);
+            // classes that are not part of snapshot are handled as classes outside of ASM model
+            return featureTable != null ? featureTable : new FeatureTable(clazz);
+        }
+    }
+
+    private static class FeatureTable {
+
+        private final Map<String, EAttribute> attributes;
+        private final Map<String, EReference> references;
+        private final Set<List<Object>> attributeSignatures;
+        private final Set<List<Object>> referenceSignatures;
+        private final Map<EClass, MixinCheck> mixinChecks = new ConcurrentHashMap<>();
+
+        private FeatureTable(final EClass clazz) {
+            attributes = new HashMap<>();
+            references = new HashMap<>();
+            attributeSignatures = new HashSet<>();
+            referenceSignatures = new HashSet<>();
+            clazz.getEAllAttributes().forEach(a -> {
+                attributes.putIfAbsent(a.getName(), a);
+                attributeSignatures.add(Arrays.asList(a.getName(), getTypeName(a.getEAttributeType())));
+            });
+            clazz.getEAllReferences().forEach(r -> {
+                references.putIfAbsent(r.getName(), r);
+                referenceSignatures.add(Arrays.asList(r.getName(), r.getLowerBound(), r.getUpperBound(), getTypeName(r.getEReferenceType())));
+            });
+        }
+
+        /**
+         * Create a table with the same features as another one, results of mixin checks are not shared.
+         *
+         * @param featureTable feature table
+         */
+        private FeatureTable(final FeatureTable featureTable) {
+            attributes = featureTable.attributes;
+            references = featureTable.references;
+            attributeSignatures = featureTable.attributeSignatures;
+            referenceSignatures = featureTable.referenceSignatures;
+        }
+
+        private static String getTypeName(final EClassifier type) {
+            return type != null ? AsmUtils.getClassifierFQName(type) : null;
+        }
+    }
+
+    private static class MixinCheck {
+
+        private final FeatureTable mixinTable;
+        private final boolean result;
+
+        private MixinCheck(final FeatureTable mixinTable, final boolean result) {
+            this.mixinTable = mixinTable;
+            this.result = result;
+        }
+    }
+
+    private static class ClassifierIndex {
+
+        private final long modificationStamp;
+
+        private final Map<String, Map<String, EClassifier>> classifiersByNamespace = new HashMap<>();
+        private final Map<EClassifier, String> namespacesByClassifier = new HashMap<>();
+        private final Map<EClass, List<EClass>> containerTypesByContainedType = new HashMap<>();
+
+        private final EList<EClass> entityTypes;
+        private final EList<EClass> transferObjectTypes;
+        private final EList<EClass> mappedTransferObjectTypes;
+        private final EList<EClass> unmappedTransferObjectTypes;
+        private final EList<EEnum> enums;
+        private final EList<EDataType> primitiveTypes;
+
+        private ClassifierIndex(final long modificationStamp, final AsmUtils asmUtils, final Collection<EPackage> ePackages) {
+            this.modificationStamp = modificationStamp;
+            final List<EClass> entityTypes = new ArrayList<>();
+            final List<EClass> transferObjectTypes = new ArrayList<>();
+            final List<EClass> mappedTransferObjectTypes = new ArrayList<>();
+            final List<EClass> unmappedTransferObjectTypes = new ArrayList<>();
+            final List<EEnum> enums = new ArrayList<>();
+            final List<EDataType> primitiveTypes = new ArrayList<>();
+
+            for (final EPackage ePackage : ePackages) {
+                final String packageFqName = AsmUtils.getPackageFQName(ePackage);
+                final Map<String, EClassifier> classifiers = classifiersByNamespace.computeIfAbsent(packageFqName, k -> new HashMap<>());
+                for (final EClassifier classifier : ePackage.getEClassifiers()) {
+                    classifiers.putIfAbsent(classifier.getName(), classifier);
+                    namespacesByClassifier.put(classifier, packageFqName);
+                    if (classifier instanceof EClass) {
+                        final EClass clazz = (EClass) classifier;
+                        addContainer(clazz);
+
+                        final boolean entityType = AsmUtils.isEntityType(clazz);
+                        final boolean mappedTransferObjectType = asmUtils.isMappedTransferObjectType(clazz);
+                        if (entityType) {
+                            entityTypes.add(clazz);
+                        }
+                        if (mappedTransferObjectType) {
+                            mappedTransferObjectTypes.add(clazz);
+                        }
+                        if (!entityType || mappedTransferObjectType) {
+                            transferObjectTypes.add(clazz);
+                        }
+                        if (!entityType && !mappedTransferObjectType) {
+                            unmappedTransferObjectTypes.add(clazz);
+                        }
+                    } else if (classifier instanceof EDataType) {
+                        primitiveTypes.add((EDataType) classifier);
+                        if (classifier instanceof EEnum && AsmUtils.isEnumeration((EEnum) classifier)) {
+                            enums.add((EEnum) classifier);
+                        }
+                    }
+                }
+            }
+
+            // unmodifiable views (instead of copies) accept classifiers without name
+            classifiersByNamespace.replaceAll((packageFqName, classifiers) -> Collections.unmodifiableMap(classifiers));
+            containerTypesByContainedType.replaceAll((containedType, containerTypes) -> Collections.unmodifiableList(containerTypes));
+
+            this.entityTypes = ECollections.unmodifiableEList(entityTypes);
+            this.transferObjectTypes = ECollections.unmodifiableEList(transferObjectTypes);
+            this.mappedTransferObjectTypes = ECollections.unmodifiableEList(mappedTransferObjectTypes);
+            this.unmappedTransferObjectTypes = ECollections.unmodifiableEList(unmappedTransferObjectTypes);
+            this.enums = ECollections.unmodifiableEList(enums);
+            this.primitiveTypes = ECollections.unmodifiableEList(primitiveTypes);
+        }
+
+        private void addContainer(final EClass container) {
+            final Set<EClass> containedTypes = new LinkedHashSet<>();
+            container.getEAllContainments().forEach(c -> containedTypes.add(c.getEReferenceType()));
+            for (final EClass containedType : containedTypes) {
+                final List<EClass> containerTypes = containerTypesByContainedType.computeIfAbsent(containedType, k -> new ArrayList<>());
+                containerTypes.addAll(container.getEAllSuperTypes());
+                containerTypes.add(container);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package hu.blackbelt.judo.meta.expression.adapters.asm;
+
+/*-
+ * #%L
+ * JUDO :: Expression :: ASM Adapter Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.ecore.resource.ResourceSet;
+
+/**
+ * Model adapter for ASM models that can be shared by multiple threads.
+ *
+ * <p>Lookup tables of ASM and measure models are built and structures that EMF initializes lazily (derived feature
+ * lists, instance classes and annotation details) are initialized when adapter is created, so queries are read-only
+ * operations on EMF models and lock-free reads of (concurrent) lookup tables.</p>
+ *
+ * <p>ASM and measure models must not be changed while adapter is used by multiple threads. Lookup tables are dropped
+ * on changes as usual, call {@link #prepare()} after changing models to prepare adapter for concurrent use again.</p>
+ */
+public class ConcurrentAsmModelAdapter extends AsmModelAdapter {
+
+    public ConcurrentAsmModelAdapter(final ResourceSet asmResourceSet, final ResourceSet measureResourceSet) {
+        this(asmResourceSet, measureResourceSet, false);
+    }
+
+    ConcurrentAsmModelAdapter(final ResourceSet asmResourceSet, final ResourceSet measureResourceSet, final boolean snapshot) {
+        super(asmResourceSet, measureResourceSet, snapshot);
+        // overriding methods are not called by constructor
+        prepareForConcurrentUse();
+    }
+
+    /**
+     * Prepare adapter for concurrent use again after ASM or measure models are changed. Adapter is prepared when it
+     * is created, it is not necessary to call this method on an unchanged model.
+     *
+     * <p>Lookup tables of ASM and measure models are rebuilt and measures and units of all primitive types and
+     * attributes are resolved. Calls of this method are serialized, but it must not be called while models are
+     * changed or adapter is queried by other threads. Caller is responsible for publishing prepared adapter safely
+     * (ie. starting threads or handing adapter over via a concurrent collection after this method returns).</p>
+     */
+    @Override
+    public void prepare() {
+        prepareForConcurrentUse();
+    }
+
+    private synchronized void prepareForConcurrentUse() {
+        super.prepare();
+    }
+}
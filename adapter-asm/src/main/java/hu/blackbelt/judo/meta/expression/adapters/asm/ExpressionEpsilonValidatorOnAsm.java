@@ -22,28 +22,114 @@ package hu.blackbelt.judo.meta.expression.adapters.asm;
 
 import hu.blackbelt.epsilon.runtime.execution.ExecutionContext;
 import org.slf4j.Logger;
+import hu.blackbelt.epsilon.runtime.execution.exceptions.EvlScriptExecutionException;
 import hu.blackbelt.epsilon.runtime.execution.exceptions.ScriptExecutionException;
 import hu.blackbelt.judo.meta.asm.runtime.AsmModel;
 import hu.blackbelt.judo.meta.expression.runtime.ExpressionEpsilonValidator;
 import hu.blackbelt.judo.meta.expression.runtime.ExpressionEvaluator;
 import hu.blackbelt.judo.meta.expression.runtime.ExpressionModel;
+import hu.blackbelt.judo.meta.expression.support.ExpressionModelResourceSupport;
 import hu.blackbelt.judo.meta.measure.runtime.MeasureModel;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.epsilon.common.util.UriUtil;
+import org.slf4j.helpers.NOPLogger;
 
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import static hu.blackbelt.epsilon.runtime.execution.ExecutionContext.executionContextBuilder;
 import static hu.blackbelt.epsilon.runtime.execution.contexts.EvlExecutionContext.evlExecutionContextBuilder;
 import static hu.blackbelt.epsilon.runtime.execution.model.emf.WrappedEmfModelContext.wrappedEmfModelContextBuilder;
 import static java.util.Collections.emptyList;
 
+/**
+ * Validator of expression models on ASM and measure models.
+ *
+ * <p>Instances of validator can be reused to validate multiple expression models on the same ASM and measure models:
+ * model adapter (with its lookup tables) and location of validation script are prepared once. Epsilon execution
+ * context (including model contexts of ASM and measure models) and expression evaluator are created for each
+ * validation, because execution context loads and disposes its models per execution and evaluator is initialized by
+ * the validated expression model.</p>
+ *
+ * <p>After a (small) change of an already validated expression model {@link #validateChanges(ExpressionModel, Collection)}
+ * can be used to validate the affected expressions only.</p>
+ *
+ * <p>Expression models can be validated in parallel, see
+ * {@link #ExpressionEpsilonValidatorOnAsm(Logger, AsmModel, MeasureModel, URI, int)}.</p>
+ */
 public class ExpressionEpsilonValidatorOnAsm extends ExpressionEpsilonValidator {
 
+    // execution contexts of all validators wrap the same ASM and measure resources
+    private static final Object EXECUTION_CONTEXT_LOCK = new Object();
+
+    private final Logger log;
+    private final AsmModel asmModel;
+    private final MeasureModel measureModel;
+    private final AsmModelAdapter modelAdapter;
+    private final ConcurrentAsmModelAdapter concurrentModelAdapter;
+    private final URI scriptUri;
+    private final int parallelism;
+
+    public ExpressionEpsilonValidatorOnAsm(Logger log, AsmModel asmModel, MeasureModel measureModel, URI scriptRoot)
+            throws URISyntaxException {
+        this(log, asmModel, measureModel, scriptRoot, 1);
+    }
+
+    /**
+     * Create validator with parallel evaluation of constraints.
+     *
+     * <p>If parallelism is greater than 1, root elements of expression model are split into independent groups (root
+     * elements referring each other, ie. variables and expressions using them, are kept together). Each group is
+     * copied into a temporary expression model and validated on a worker pool, all workers share a
+     * {@link ConcurrentAsmModelAdapter}, expression evaluators are created per group. Execution contexts of groups wrap
+     * the same ASM and measure resources, so loading and closing them is serialized, constraints are evaluated
+     * concurrently.</p>
+     *
+     * <p>Errors of all groups are merged and compared with the expected errors, the model is accepted without further
+     * validation if they are matching. Otherwise groups failing validation are merged into a single expression model
+     * that is validated again (sequentially) with the expected errors and warnings to report all errors and warnings
+     * together as sequential validation does. Groups passing validation might have warnings, so all groups are
+     * validated again if warnings are expected.</p>
+     *
+     * <p>Parallel validation assumes that constraints are evaluated on elements reachable from the validated element
+     * (its root element and root elements referred by it). Constraints that quantify over all elements of a type (ie.
+     * uniqueness checks using <code>Binding.all</code>) see the elements of a single group only, violations across
+     * groups are not reported. Use sequential validation if the validation script has such constraints.</p>
+     *
+     * @param log          logger
+     * @param asmModel     ASM model
+     * @param measureModel measure model
+     * @param scriptRoot   root of validation scripts
+     * @param parallelism  number of worker threads, 1 for sequential validation
+     * @throws URISyntaxException if script location is invalid
+     */
+    public ExpressionEpsilonValidatorOnAsm(Logger log, AsmModel asmModel, MeasureModel measureModel, URI scriptRoot, int parallelism)
+            throws URISyntaxException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.log = log;
+        this.asmModel = asmModel;
+        this.measureModel = measureModel;
+        this.parallelism = parallelism;
+        concurrentModelAdapter = parallelism > 1
+                ? new ConcurrentAsmModelAdapter(asmModel.getResourceSet(), measureModel.getResourceSet())
+                : null;
+        modelAdapter = concurrentModelAdapter != null
+                ? concurrentModelAdapter
+                : new AsmModelAdapter(asmModel.getResourceSet(), measureModel.getResourceSet());
+        scriptUri = UriUtil.resolve("expression.evl", scriptRoot);
+    }
+
     public static void validateExpressionOnAsm(Logger log, AsmModel asmModel, MeasureModel measureModel, ExpressionModel expressionModel, URI scriptRoot)
             throws ScriptExecutionException, URISyntaxException {
         validateExpressionOnAsm(log, asmModel, measureModel, expressionModel, scriptRoot, emptyList(), emptyList());
@@ -52,10 +138,46 @@ public class ExpressionEpsilonValidatorOnAsm extends ExpressionEpsilonValidator
     public static void validateExpressionOnAsm(Logger log, AsmModel asmModel, MeasureModel measureModel, ExpressionModel expressionModel, URI scriptRoot,
                                    Collection<String> expectedErrors, Collection<String> expectedWarnings)
             throws ScriptExecutionException, URISyntaxException {
+        new ExpressionEpsilonValidatorOnAsm(log, asmModel, measureModel, scriptRoot)
+                .validate(expressionModel, expectedErrors, expectedWarnings);
+    }
+
+    /**
+     * Validate an expression model.
+     *
+     * @param expressionModel expression model
+     * @throws ScriptExecutionException if validation failed
+     */
+    public void validate(ExpressionModel expressionModel) throws ScriptExecutionException {
+        validate(expressionModel, emptyList(), emptyList());
+    }
 
+    /**
+     * Validate an expression model.
+     *
+     * <p>If validator is created with parallelism greater than 1, constraints quantifying over all elements of a type
+     * are evaluated on partitions of expression model only, see
+     * {@link #ExpressionEpsilonValidatorOnAsm(Logger, AsmModel, MeasureModel, URI, int)}.</p>
+     *
+     * @param expressionModel  expression model
+     * @param expectedErrors   expected errors
+     * @param expectedWarnings expected warnings
+     * @throws ScriptExecutionException if validation failed or errors/warnings are not matching the expected ones
+     */
+    public void validate(ExpressionModel expressionModel, Collection<String> expectedErrors, Collection<String> expectedWarnings)
+            throws ScriptExecutionException {
+        if (parallelism > 1 && expressionModel.getResource().getContents().size() > 1) {
+            validateInParallel(expressionModel, expectedErrors, expectedWarnings);
+        } else {
+            execute(log, expressionModel, expectedErrors, expectedWarnings);
+        }
+    }
+
+    private void execute(Logger log, ExpressionModel expressionModel, Collection<String> expectedErrors, Collection<String> expectedWarnings)
+            throws ScriptExecutionException {
         final Map<String, Object> injections = new HashMap<>();
         injections.put("evaluator", new ExpressionEvaluator());
-        injections.put("modelAdapter", new AsmModelAdapter(asmModel.getResourceSet(), measureModel.getResourceSet()));
+        injections.put("modelAdapter", modelAdapter);
 
         ExecutionContext executionContext = executionContextBuilder()
                 .log(log)
@@ -85,18 +207,254 @@ public class ExpressionEpsilonValidatorOnAsm extends ExpressionEpsilonValidator
 
         try {
             // run the model / metadata loading
-            executionContext.load();
+            synchronized (EXECUTION_CONTEXT_LOCK) {
+                executionContext.load();
+            }
 
             // Transformation script
             executionContext
-                    .executeProgram(evlExecutionContextBuilder().source(UriUtil.resolve("expression.evl", scriptRoot))
+                    .executeProgram(evlExecutionContextBuilder().source(scriptUri)
                             .expectedErrors(expectedErrors).expectedWarnings(expectedWarnings).build());
 
         } finally {
-            executionContext.commit();
-            try {
-                executionContext.close();
-            } catch (Exception e) {
+            synchronized (EXECUTION_CONTEXT_LOCK) {
+                executionContext.commit();
+                try {
+                    executionContext.close();
+                } catch (Exception e) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Validate changed (or added) elements of an expression model that was already validated successfully.
+     *
+     * @param expressionModel expression model
+     * @param changedElements changed or added elements of expression model
+     * @throws ScriptExecutionException if validation failed
+     * @see #validateChanges(ExpressionModel, Collection, Collection, Collection)
+     */
+    public void validateChanges(ExpressionModel expressionModel, Collection<? extends EObject> changedElements)
+            throws ScriptExecutionException {
+        validateChanges(expressionModel, changedElements, emptyList(), emptyList());
+    }
+
+    /**
+     * Validate changed (or added) elements of an expression model that was already validated successfully.
+     *
+     * <p>Only root elements of expression model containing changed elements and root elements referring them
+     * (transitively, ie. bindings of changed expressions or expressions using changed variables) are validated. Root
+     * elements referenced by affected ones are validated too because they are copied with affected elements into a
+     * temporary expression model that is validated. Results of previous validations are not stored: errors and warnings
+     * are reported (and checked against the expectations) for this subset only, callers are responsible for the
+     * results of unaffected elements.</p>
+     *
+     * @param expressionModel  expression model
+     * @param changedElements  changed or added elements of expression model
+     * @param expectedErrors   expected errors of affected elements
+     * @param expectedWarnings expected warnings of affected elements
+     * @throws ScriptExecutionException if validation failed or errors/warnings are not matching the expected ones
+     */
+    public void validateChanges(ExpressionModel expressionModel, Collection<? extends EObject> changedElements,
+                                Collection<String> expectedErrors, Collection<String> expectedWarnings)
+            throws ScriptExecutionException {
+        final Resource resource = expressionModel.getResource();
+        final Set<EObject> changedRoots = changedElements.stream()
+                .map(EcoreUtil::getRootContainer)
+                .filter(root -> root.eResource() == resource)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (changedRoots.isEmpty()) {
+            log.debug("No changed expressions to validate");
+            return;
+        }
+
+        final RootReferences references = new RootReferences(resource);
+        final Set<EObject> affectedRoots = closure(changedRoots, references.usages);
+        final Set<EObject> selectedRoots = closure(affectedRoots, references.dependencies);
+        final List<EObject> roots = resource.getContents().stream()
+                .filter(selectedRoots::contains)
+                .collect(Collectors.toList());
+        log.debug("Validating {} of {} expression model root elements, {} changed, {} affected",
+                roots.size(), resource.getContents().size(), changedRoots.size(), affectedRoots.size());
+
+        validate(copyOf(expressionModel, roots), expectedErrors, expectedWarnings);
+    }
+
+    private void validateInParallel(ExpressionModel expressionModel, Collection<String> expectedErrors, Collection<String> expectedWarnings)
+            throws ScriptExecutionException {
+        final Resource resource = expressionModel.getResource();
+        final RootReferences references = new RootReferences(resource);
+
+        // independent groups of root elements, largest group is assigned to the least loaded partition first
+        final List<Set<EObject>> groups = new ArrayList<>();
+        final Set<EObject> grouped = new HashSet<>();
+        for (final EObject root : resource.getContents()) {
+            if (grouped.add(root)) {
+                final Set<EObject> group = closure(Collections.singleton(root), references.neighbours);
+                grouped.addAll(group);
+                groups.add(group);
+            }
+        }
+        groups.sort(Comparator.comparingInt((Set<EObject> g) -> g.size()).reversed());
+
+        final int partitionCount = Math.min(parallelism, groups.size());
+        final List<Set<EObject>> partitions = new ArrayList<>();
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(new HashSet<>());
+        }
+        for (final Set<EObject> group : groups) {
+            partitions.stream().min(Comparator.comparingInt(Set::size)).get().addAll(group);
+        }
+
+        final List<ExpressionModel> partitionModels = partitions.stream()
+                .map(partition -> copyOf(expressionModel, resource.getContents().stream()
+                        .filter(partition::contains)
+                        .collect(Collectors.toList())))
+                .collect(Collectors.toList());
+        log.debug("Validating {} expression model root elements in {} partitions", resource.getContents().size(), partitionModels.size());
+
+        // models may have been changed since previous validation
+        concurrentModelAdapter.prepare();
+
+        final Set<EObject> failedRoots = new HashSet<>();
+        final List<String> errors = new ArrayList<>();
+        boolean mergeable = true;
+        final ExecutorService executor = Executors.newFixedThreadPool(partitionModels.size());
+        try {
+            final List<Future<PartitionResult>> futures = new ArrayList<>();
+            partitionModels.forEach(partitionModel -> futures.add(executor.submit(() -> validatePartition(partitionModel))));
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    final PartitionResult result = futures.get(i).get();
+                    if (!result.valid) {
+                        failedRoots.addAll(partitions.get(i));
+                    }
+                    if (result.errors != null) {
+                        errors.addAll(result.errors);
+                    } else {
+                        mergeable = false;
+                    }
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) ex.getCause();
+                    } else {
+                        throw new IllegalStateException("Failed to validate expression model", ex.getCause());
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Validation of expression model interrupted", ex);
+        } finally {
+            executor.shutdown();
+        }
+
+        if (failedRoots.isEmpty() && expectedErrors.isEmpty() && expectedWarnings.isEmpty()) {
+            return;
+        }
+        if (mergeable && expectedWarnings.isEmpty() && isMatching(errors, expectedErrors)) {
+            log.debug("Errors of {} partitions are matching expected errors", partitionModels.size());
+            return;
+        }
+        // errors and warnings of all partitions are reported (and checked against expectations) together
+        final List<EObject> roots = resource.getContents().stream()
+                .filter(root -> !expectedWarnings.isEmpty() || failedRoots.contains(root))
+                .collect(Collectors.toList());
+        log.debug("Validating {} expression model root elements of failed partitions", roots.size());
+        execute(log, roots.size() < resource.getContents().size() ? copyOf(expressionModel, roots) : expressionModel,
+                expectedErrors, expectedWarnings);
+    }
+
+    private PartitionResult validatePartition(ExpressionModel expressionModel) {
+        try {
+            // errors are reported by validation of failed partitions
+            execute(NOPLogger.NOP_LOGGER, expressionModel, emptyList(), emptyList());
+            return new PartitionResult(true, emptyList());
+        } catch (EvlScriptExecutionException ex) {
+            // nothing is expected, so all errors are unexpected ones, warnings are not merged
+            final Collection<?> unexpectedErrors = ex.getUnexpectedErrors();
+            final Collection<?> unexpectedWarnings = ex.getUnexpectedWarnings();
+            return new PartitionResult(false, unexpectedErrors != null && unexpectedWarnings != null && unexpectedWarnings.isEmpty()
+                    ? unexpectedErrors.stream().map(String::valueOf).collect(Collectors.toList())
+                    : null);
+        } catch (ScriptExecutionException ex) {
+            return new PartitionResult(false, null);
+        }
+    }
+
+    private static boolean isMatching(final Collection<String> errors, final Collection<String> expectedErrors) {
+        final List<String> sortedErrors = new ArrayList<>(errors);
+        final List<String> sortedExpectedErrors = new ArrayList<>(expectedErrors);
+        Collections.sort(sortedErrors);
+        Collections.sort(sortedExpectedErrors);
+        return sortedErrors.equals(sortedExpectedErrors);
+    }
+
+    private static ExpressionModel copyOf(final ExpressionModel expressionModel, final Collection<EObject> roots) {
+        final ExpressionModelResourceSupport expressionModelResourceSupport = ExpressionModelResourceSupport.expressionModelResourceSupportBuilder()
+                .uri(expressionModel.getResource().getURI())
+                .build();
+        EcoreUtil.copyAll(roots).forEach(expressionModelResourceSupport::addContent);
+        return ExpressionModel.buildExpressionModel()
+                .name(expressionModel.getName())
+                .expressionModelResourceSupport(expressionModelResourceSupport)
+                .build();
+    }
+
+    private static Set<EObject> closure(final Set<EObject> elements, final Map<EObject, Set<EObject>> edges) {
+        final Set<EObject> result = new HashSet<>(elements);
+        final Deque<EObject> queue = new ArrayDeque<>(elements);
+        while (!queue.isEmpty()) {
+            for (final EObject next : edges.getOrDefault(queue.poll(), Collections.emptySet())) {
+                if (result.add(next)) {
+                    queue.add(next);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Result of validating a partition of an expression model.
+     */
+    private static class PartitionResult {
+
+        private final boolean valid;
+
+        // errors of partition, null if they are not known (ie. partition has warnings)
+        private final List<String> errors;
+
+        private PartitionResult(final boolean valid, final List<String> errors) {
+            this.valid = valid;
+            this.errors = errors;
+        }
+    }
+
+    /**
+     * References between root elements of an expression model.
+     */
+    private static class RootReferences {
+
+        private final Map<EObject, Set<EObject>> usages = new HashMap<>();
+        private final Map<EObject, Set<EObject>> dependencies = new HashMap<>();
+        private final Map<EObject, Set<EObject>> neighbours = new HashMap<>();
+
+        private RootReferences(final Resource resource) {
+            for (final Map.Entry<EObject, Collection<EStructuralFeature.Setting>> entry : EcoreUtil.CrossReferencer.find(resource.getContents()).entrySet()) {
+                final EObject targetRoot = EcoreUtil.getRootContainer(entry.getKey());
+                if (targetRoot.eResource() != resource) {
+                    continue;
+                }
+                for (final EStructuralFeature.Setting setting : entry.getValue()) {
+                    final EObject sourceRoot = EcoreUtil.getRootContainer(setting.getEObject());
+                    if (sourceRoot != targetRoot) {
+                        usages.computeIfAbsent(targetRoot, k -> new HashSet<>()).add(sourceRoot);
+                        dependencies.computeIfAbsent(sourceRoot, k -> new HashSet<>()).add(targetRoot);
+                        neighbours.computeIfAbsent(targetRoot, k -> new HashSet<>()).add(sourceRoot);
+                        neighbours.computeIfAbsent(sourceRoot, k -> new HashSet<>()).add(targetRoot);
+                    }
+                }
             }
         }
     }
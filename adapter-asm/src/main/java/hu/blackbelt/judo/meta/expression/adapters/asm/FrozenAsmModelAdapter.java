@@ -0,0 +1,127 @@
+package hu.blackbelt.judo.meta.expression.adapters.asm;
+
+/*-
+ * #%L
+ * JUDO :: Expression :: ASM Adapter Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.measure.Measure;
+import hu.blackbelt.judo.meta.measure.Unit;
+import org.eclipse.emf.common.util.BasicEList;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Model adapter answering queries from an immutable snapshot of ASM and measure models.
+ *
+ * <p>Snapshot is taken when adapter is created: lookup tables of ASM model (classifiers by name, features of classes
+ * by name, container types and lists of types) are taken from {@link AsmModelIndex} and are not changed (or dropped)
+ * by the index later, results of mixin checks are cached by the snapshot. Lookup tables of measure model (measures and
+ * units by name, unit rates, conversion rates and base duration ratios) are frozen, they are not dropped when measure
+ * model changes. Units of attributes, measured types and list of measures are stored in immutable collections, so
+ * adapter can be shared by multiple threads without synchronization.</p>
+ *
+ * <p>Lookups of changed ASM and measure models are not visible to adapter (see {@link #isStale()}), create a new
+ * adapter if models are changed. Model elements themselves are not copied: features of returned elements (ie. units of
+ * a measure or terms of a derived measure) are read from the models. Elements that are not part of the snapshot (ie.
+ * classes outside of ASM model) are handled as {@link AsmModelAdapter} does.</p>
+ */
+public class FrozenAsmModelAdapter extends ConcurrentAsmModelAdapter {
+
+    private final AsmModelIndex modelIndex;
+    private final long asmModificationCount;
+    private final long measureModificationCount;
+
+    private final Map<EAttribute, Optional<Unit>> attributeUnits;
+    private final Map<EDataType, Optional<? extends Measure>> measuresOfTypes;
+    private final Map<EDataType, Optional<Unit>> unitsOfTypes;
+    private final EList<Measure> measures;
+
+    public FrozenAsmModelAdapter(final ResourceSet asmResourceSet, final ResourceSet measureResourceSet) {
+        super(asmResourceSet, measureResourceSet, true);
+        modelIndex = AsmModelIndex.of(asmResourceSet);
+        asmModificationCount = modelIndex.getModificationCount();
+        measureModificationCount = getMeasureModificationCount();
+
+        final Map<EAttribute, Optional<Unit>> attributeUnits = new HashMap<>();
+        getAsmElement(EAttribute.class).forEach(a -> attributeUnits.put(a, super.getUnit(a)));
+        final Map<EDataType, Optional<? extends Measure>> measuresOfTypes = new HashMap<>();
+        final Map<EDataType, Optional<Unit>> unitsOfTypes = new HashMap<>();
+        for (final EDataType dataType : super.getAllPrimitiveTypes()) {
+            measuresOfTypes.put(dataType, super.getMeasureOfType(dataType));
+            unitsOfTypes.put(dataType, super.getUnitOfType(dataType));
+        }
+
+        this.attributeUnits = Map.copyOf(attributeUnits);
+        this.measuresOfTypes = Map.copyOf(measuresOfTypes);
+        this.unitsOfTypes = Map.copyOf(unitsOfTypes);
+        measures = immutableCopyOf(super.getAllMeasures());
+    }
+
+    private static <T> EList<T> immutableCopyOf(final Collection<T> elements) {
+        return new BasicEList.UnmodifiableEList<>(elements.size(), elements.toArray());
+    }
+
+    /**
+     * Check if ASM or measure model is changed since the snapshot is taken.
+     *
+     * @return <code>true</code> if adapter is stale
+     */
+    public boolean isStale() {
+        return modelIndex.getModificationCount() != asmModificationCount
+                || getMeasureModificationCount() != measureModificationCount;
+    }
+
+    /**
+     * Snapshot is immutable, it is not prepared again. Create a new adapter if models are changed.
+     */
+    @Override
+    public void prepare() {
+    }
+
+    @Override
+    public Optional<? extends Measure> getMeasureOfType(final EDataType primitiveType) {
+        final Optional<? extends Measure> measure = measuresOfTypes.get(primitiveType);
+        return measure != null ? measure : super.getMeasureOfType(primitiveType);
+    }
+
+    @Override
+    public Optional<Unit> getUnitOfType(final EDataType primitiveType) {
+        final Optional<Unit> unit = unitsOfTypes.get(primitiveType);
+        return unit != null ? unit : super.getUnitOfType(primitiveType);
+    }
+
+    @Override
+    public Optional<Unit> getUnit(final EAttribute attribute) {
+        final Optional<Unit> unit = attributeUnits.get(attribute);
+        return unit != null ? unit : super.getUnit(attribute);
+    }
+
+    @Override
+    public EList<Measure> getAllMeasures() {
+        // measures might be queried while superclass is prepared, before snapshot is taken
+        return measures != null ? measures : super.getAllMeasures();
+    }
+}
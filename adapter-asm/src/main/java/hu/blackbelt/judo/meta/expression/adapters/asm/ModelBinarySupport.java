@@ -0,0 +1,220 @@
+package hu.blackbelt.judo.meta.expression.adapters.asm;
+
+/*-
+ * #%L
+ * JUDO :: Expression :: ASM Adapter Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Compact binary serialization of EMF models (ASM, measure and expression models).
+ *
+ * <p>Models are written by {@link BinaryResourceImpl} object streams, strings (names, namespaces, annotation details,
+ * etc.) are interned: each distinct string is written once and referred by index afterwards. Binary model files are
+ * loaded from memory-mapped files, so large models are read without copying file content to heap buffers.</p>
+ *
+ * <p>ASM and measure models loaded by {@link #loadResource(ResourceSet, URI, File)} can be passed to
+ * {@link AsmModelAdapter} (and JQL extractor) as any other resource set. Loading is eager: all elements (including
+ * metadata that the adapter never reads, ie. operation bodies) are materialized before the load methods return,
+ * memory mapping only avoids copying file content.</p>
+ */
+public final class ModelBinarySupport {
+
+    private static final int NULL_STRING = 0;
+    private static final int NEW_STRING = 1;
+    private static final int STRING_REFERENCE_OFFSET = 2;
+
+    private static final BinaryResourceImpl.BinaryIO.Version VERSION = BinaryResourceImpl.BinaryIO.Version.VERSION_1_1;
+
+    private ModelBinarySupport() {
+    }
+
+    /**
+     * Write contents of a resource in binary format.
+     *
+     * @param resource     resource
+     * @param outputStream output stream (not closed)
+     * @throws IOException if writing failed
+     */
+    public static void save(final Resource resource, final OutputStream outputStream) throws IOException {
+        final InterningEObjectOutputStream eObjectOutputStream = new InterningEObjectOutputStream(outputStream);
+        eObjectOutputStream.saveResource(resource);
+        eObjectOutputStream.flush();
+    }
+
+    /**
+     * Write contents of a resource to file in binary format.
+     *
+     * @param resource resource
+     * @param file     target file
+     * @throws IOException if writing failed
+     */
+    public static void save(final Resource resource, final File file) throws IOException {
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file))) {
+            save(resource, outputStream);
+        }
+    }
+
+    /**
+     * Read contents of a resource in binary format. Loaded elements are added to contents of resource, packages are
+     * resolved by package registry of resource set of resource.
+     *
+     * @param resource    resource
+     * @param inputStream input stream (not closed)
+     * @throws IOException if reading failed
+     */
+    public static void load(final Resource resource, final InputStream inputStream) throws IOException {
+        new InterningEObjectInputStream(inputStream).loadResource(resource);
+    }
+
+    /**
+     * Read contents of a resource from memory-mapped binary file. All elements are materialized when the method
+     * returns.
+     *
+     * <p>The mapping is used while loading only, it is not referenced by loaded elements. It is released when the buffer
+     * is garbage collected (there is no API to unmap it explicitly), until then the file might not be deleted or
+     * replaced on some platforms (ie. Windows).</p>
+     *
+     * @param resource resource
+     * @param file     binary file
+     * @throws IOException if reading failed
+     */
+    public static void load(final Resource resource, final File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                // too large to be mapped to a single buffer
+                try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+                    load(resource, inputStream);
+                }
+            } else {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                load(resource, new ByteBufferInputStream(buffer));
+            }
+        }
+    }
+
+    /**
+     * Create resource in a resource set and load its contents from memory-mapped binary file.
+     *
+     * @param resourceSet resource set (with registered packages of model)
+     * @param uri         URI of resource
+     * @param file        binary file
+     * @return loaded resource
+     * @throws IOException if reading failed
+     */
+    public static Resource loadResource(final ResourceSet resourceSet, final URI uri, final File file) throws IOException {
+        Resource resource = resourceSet.createResource(uri);
+        if (resource == null) {
+            resource = new BinaryResourceImpl(uri);
+            resourceSet.getResources().add(resource);
+        }
+        load(resource, file);
+        return resource;
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) {
+            if (length == 0) {
+                return 0;
+            } else if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    private static class InterningEObjectOutputStream extends BinaryResourceImpl.EObjectOutputStream {
+
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        private InterningEObjectOutputStream(final OutputStream outputStream) throws IOException {
+            // version is written to header of stream, input stream reads it from there
+            super(outputStream, Collections.emptyMap(), VERSION);
+        }
+
+        @Override
+        public void writeString(final String value) throws IOException {
+            if (value == null) {
+                writeCompressedInt(NULL_STRING);
+                return;
+            }
+            final Integer index = strings.get(value);
+            if (index != null) {
+                writeCompressedInt(index + STRING_REFERENCE_OFFSET);
+            } else {
+                strings.put(value, strings.size());
+                writeCompressedInt(NEW_STRING);
+                super.writeString(value);
+            }
+        }
+    }
+
+    private static class InterningEObjectInputStream extends BinaryResourceImpl.EObjectInputStream {
+
+        private final List<String> strings = new ArrayList<>();
+
+        private InterningEObjectInputStream(final InputStream inputStream) throws IOException {
+            super(inputStream, Collections.emptyMap());
+        }
+
+        @Override
+        public String readString() throws IOException {
+            final int code = readCompressedInt();
+            if (code == NULL_STRING) {
+                return null;
+            } else if (code == NEW_STRING) {
+                final String value = super.readString();
+                strings.add(value);
+                return value;
+            } else {
+                return strings.get(code - STRING_REFERENCE_OFFSET);
+            }
+        }
+    }
+}
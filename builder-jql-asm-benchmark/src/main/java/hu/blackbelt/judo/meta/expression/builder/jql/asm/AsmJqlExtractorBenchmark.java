@@ -0,0 +1,120 @@
+package hu.blackbelt.judo.meta.expression.builder.jql.asm;
+
+/*-
+ * #%L
+ * JUDO :: Expression :: ASM Adapter Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.expression.adapters.asm.AsmModelGenerator;
+import hu.blackbelt.judo.meta.expression.builder.jql.JqlExpressionBuilderConfig;
+import hu.blackbelt.judo.meta.expression.support.ExpressionModelResourceSupport;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link AsmJqlExtractor#extractExpressions()} on generated ASM models with derived features.
+ *
+ * <p>Cold extraction creates extractor (and model adapter) on a freshly generated model and extracts all expressions,
+ * warm extraction calls an extractor again that has already extracted expressions of the model. Use
+ * {@link AsmJqlExtractorBenchmarkRunner} to get allocation rates and JSON output.</p>
+ */
+public class AsmJqlExtractorBenchmark {
+
+    private static final URI EXPRESSION_URI = URI.createURI("urn:benchmark.judo-meta-expression");
+
+    @State(Scope.Benchmark)
+    public abstract static class ModelState {
+
+        @Param({"100", "1000"})
+        public int entities;
+
+        @Param({"10"})
+        public int packages;
+
+        @Param({"5"})
+        public int derivedAttributesPerClass;
+
+        @Param({"3"})
+        public int derivedReferencesPerClass;
+
+        @Param({"0", "1", "4"})
+        public int parallelism;
+
+        AsmModelGenerator generator;
+
+        void generate() {
+            generator = new AsmModelGenerator(packages, Math.max(1, entities / packages), 10, 4, 3, 10)
+                    .withDerivedFeatures(derivedAttributesPerClass, derivedReferencesPerClass)
+                    .generate();
+        }
+
+        AsmJqlExtractor createExtractor() {
+            final AsmJqlExtractor extractor = new AsmJqlExtractor(generator.getAsmModel().getResourceSet(), generator.getMeasureModel().getResourceSet(),
+                    ExpressionModelResourceSupport.expressionModelResourceSupportBuilder()
+                            .uri(EXPRESSION_URI)
+                            .build().getResourceSet(), new JqlExpressionBuilderConfig());
+            extractor.setParallelism(parallelism);
+            return extractor;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ColdState extends ModelState {
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            generate();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class WarmState extends ModelState {
+
+        AsmJqlExtractor extractor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            generate();
+            extractor = createExtractor();
+            extractor.extractExpressions();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    @Fork(1)
+    public ResourceSet coldExtraction(final ColdState state) {
+        return state.createExtractor().extractExpressions();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, time = 5)
+    @Measurement(iterations = 5, time = 5)
+    @Fork(1)
+    public ResourceSet warmExtraction(final WarmState state) {
+        return state.extractor.extractExpressions();
+    }
+}
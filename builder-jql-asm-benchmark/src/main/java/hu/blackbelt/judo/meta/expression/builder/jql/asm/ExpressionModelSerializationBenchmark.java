@@ -0,0 +1,107 @@
+package hu.blackbelt.judo.meta.expression.builder.jql.asm;
+
+/*-
+ * #%L
+ * JUDO :: Expression :: ASM Adapter Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.expression.adapters.asm.AsmModelGenerator;
+import hu.blackbelt.judo.meta.expression.support.ExpressionModelResourceSupport;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of saving and loading extracted expression models in XMI and binary
+ * ({@link ExpressionModelBinarySupport}) formats. Both formats are loaded eagerly, load benchmarks measure
+ * materializing the whole model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpressionModelSerializationBenchmark {
+
+    private static final Logger log = org.slf4j.LoggerFactory.getLogger(ExpressionModelSerializationBenchmark.class);
+
+    private static final URI EXPRESSION_URI = URI.createURI("urn:benchmark.judo-meta-expression");
+
+    @Param({"100", "1000"})
+    public int entities;
+
+    private Resource expressionResource;
+    private byte[] xmi;
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final AsmModelGenerator generator = new AsmModelGenerator(10, Math.max(1, entities / 10), 10, 4, 3, 10)
+                .withDerivedFeatures(5, 3)
+                .generate();
+        expressionResource = new AsmJqlExtractor(generator.getAsmModel().getResourceSet(),
+                generator.getMeasureModel().getResourceSet(), EXPRESSION_URI)
+                .extractExpressions().getResources().get(0);
+
+        xmi = saveXmi().toByteArray();
+        binary = saveBinary().toByteArray();
+        log.info("Size of expression model: {} bytes (XMI), {} bytes (binary)", xmi.length, binary.length);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream saveXmi() throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        expressionResource.save(outputStream, Collections.emptyMap());
+        return outputStream;
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream saveBinary() throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ExpressionModelBinarySupport.saveExpressionBinary(expressionResource, outputStream);
+        return outputStream;
+    }
+
+    @Benchmark
+    public Resource loadXmi() throws IOException {
+        final Resource resource = createResource();
+        resource.load(new ByteArrayInputStream(xmi), Collections.emptyMap());
+        return resource;
+    }
+
+    @Benchmark
+    public Resource loadBinary() throws IOException {
+        final Resource resource = createResource();
+        ExpressionModelBinarySupport.loadExpressionBinary(resource, new ByteArrayInputStream(binary));
+        return resource;
+    }
+
+    private static Resource createResource() {
+        return ExpressionModelResourceSupport.expressionModelResourceSupportBuilder()
+                .uri(EXPRESSION_URI)
+                .build().getResource();
+    }
+}
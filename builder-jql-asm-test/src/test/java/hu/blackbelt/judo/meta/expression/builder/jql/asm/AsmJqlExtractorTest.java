@@ -22,6 +22,13 @@ package hu.blackbelt.judo.meta.expression.builder.jql.asm;
 
 import org.slf4j.Logger;
 import hu.blackbelt.epsilon.runtime.execution.impl.BufferedSlf4jLogger;
+import hu.blackbelt.judo.meta.asm.runtime.AsmUtils;
+import hu.blackbelt.judo.meta.expression.Expression;
+import hu.blackbelt.judo.meta.expression.TypeName;
+import hu.blackbelt.judo.meta.expression.binding.AttributeBinding;
+import hu.blackbelt.judo.meta.expression.binding.Binding;
+import hu.blackbelt.judo.meta.expression.binding.BindingRole;
+import hu.blackbelt.judo.meta.expression.binding.ReferenceBinding;
 import hu.blackbelt.judo.meta.expression.builder.jql.JqlExtractor;
 import hu.blackbelt.judo.meta.expression.collection.CollectionNavigationFromCollectionExpression;
 import hu.blackbelt.judo.meta.expression.collection.CollectionNavigationFromObjectExpression;
@@ -30,16 +37,27 @@ import hu.blackbelt.judo.meta.expression.string.StringAttribute;
 import hu.blackbelt.judo.meta.expression.support.ExpressionModelResourceSupport;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EClassifier;
 import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
-import java.util.Optional;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.stream.Collectors;
 
 import static hu.blackbelt.judo.meta.expression.adapters.asm.ExpressionEpsilonValidatorOnAsm.validateExpressionOnAsm;
 import static hu.blackbelt.judo.meta.expression.runtime.ExpressionEpsilonValidator.calculateExpressionValidationScriptURI;
 import static hu.blackbelt.judo.meta.expression.support.ExpressionModelResourceSupport.SaveArguments.expressionSaveArgumentsBuilder;
+import static hu.blackbelt.judo.meta.expression.util.builder.ExpressionBuilders.newTypeNameBuilder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Slf4j
@@ -147,4 +165,141 @@ public class AsmJqlExtractorTest extends ExecutionContextOnAsmTest {
 
         log.info("Extracted expressions again in {} ms", (endTs2 - startTs2));
     }
+
+    @Test
+    void testIncrementalExtract() throws Exception {
+        final AsmJqlExtractor incrementalExtractor = new AsmJqlExtractor(asmModel.getResourceSet(), measureModel.getResourceSet(),
+                URI.createURI("urn:test-incremental.judo-meta-expression"));
+        incrementalExtractor.setIncremental(true);
+
+        expressionResourceSet = incrementalExtractor.extractExpressions();
+        final AsmModelFingerprint extractedFingerprint = AsmModelFingerprint.of(modelAdapter);
+        final Map<AttributeBinding, Expression> extractedExpressions = getAttributeGetterExpressions(expressionResourceSet);
+
+        assertSame(expressionResourceSet, incrementalExtractor.extractExpressions());
+        assertTrue(extractedFingerprint.getDifferences(AsmModelFingerprint.of(modelAdapter)).isEmpty());
+
+        final EClass order = (EClass) asmUtils.resolve("demo.entities.Order").get();
+        final EAttribute shipperName = order.getEAttributes().stream().filter(a -> "shipperName".equals(a.getName())).findAny().get();
+        AsmUtils.getExtensionAnnotationByName(shipperName, "expression", false).get().getDetails().put("getter", "self.shipper.phone");
+
+        assertEquals(Collections.singleton("demo.entities.Order#shipperName"),
+                extractedFingerprint.getDifferences(AsmModelFingerprint.of(modelAdapter)));
+        assertTrue(extractedFingerprint.getStructuralDifferences(AsmModelFingerprint.of(modelAdapter)).isEmpty());
+        assertSame(expressionResourceSet, incrementalExtractor.extractExpressions());
+
+        final EClass shipper = (EClass) asmUtils.resolve("demo.entities.Shipper").get();
+        final Map<AttributeBinding, Expression> rebuiltExpressions = getAttributeGetterExpressions(expressionResourceSet);
+        assertEquals(extractedExpressions.size(), rebuiltExpressions.size());
+        final List<StringAttribute> shipperNameGetters = new ArrayList<>();
+        rebuiltExpressions.forEach((binding, expression) -> {
+            if ("shipperName".equals(binding.getAttributeName())) {
+                assertFalse(extractedExpressions.containsKey(binding));
+                shipperNameGetters.add((StringAttribute) expression);
+            } else {
+                // unchanged expressions are kept
+                assertSame(extractedExpressions.get(binding), expression);
+            }
+        });
+        assertFalse(shipperNameGetters.isEmpty());
+        for (final StringAttribute shipperNameGetter : shipperNameGetters) {
+            assertEquals("phone", shipperNameGetter.getAttributeName());
+            assertEquals(shipper, shipperNameGetter.getObjectExpression().getObjectType(modelAdapter));
+        }
+        assertSame(expressionResourceSet, incrementalExtractor.extractExpressions());
+    }
+
+    @Test
+    void testParallelExtract() throws Exception {
+        final AsmJqlExtractor sequentialExtractor = new AsmJqlExtractor(asmModel.getResourceSet(), measureModel.getResourceSet(),
+                URI.createURI("urn:test-sequential.judo-meta-expression"));
+        sequentialExtractor.setParallelism(1);
+        final ResourceSet sequentialResourceSet = sequentialExtractor.extractExpressions();
+
+        final AsmJqlExtractor parallelExtractor = new AsmJqlExtractor(asmModel.getResourceSet(), measureModel.getResourceSet(),
+                URI.createURI("urn:test-parallel.judo-meta-expression"));
+        parallelExtractor.setParallelism(4);
+        expressionResourceSet = parallelExtractor.extractExpressions();
+
+        assertFalse(expressionResourceSet.getResources().get(0).getContents().isEmpty());
+        assertTrue(EcoreUtil.equals(sequentialResourceSet.getResources().get(0).getContents(),
+                expressionResourceSet.getResources().get(0).getContents()));
+
+        // the same getters are bound as by extraction of AdaptableJqlExtractor
+        assertEquals(getGetterBindingKeys(jqlExtractor.extractExpressions()), getGetterBindingKeys(expressionResourceSet));
+
+        expressionModel = ExpressionModel.buildExpressionModel()
+                .expressionModelResourceSupport(ExpressionModelResourceSupport.expressionModelResourceSupportBuilder()
+                        .resourceSet(expressionResourceSet)
+                        .build())
+                .name(asmModel.getName())
+                .build();
+        assertTrue(expressionModel.isValid());
+        try (BufferedSlf4jLogger bufferedLog = new BufferedSlf4jLogger(log)) {
+            validateExpressionOnAsm(bufferedLog, asmModel, measureModel, expressionModel, calculateExpressionValidationScriptURI());
+        }
+    }
+
+    private static Set<String> getGetterBindingKeys(final ResourceSet resourceSet) {
+        return resourceSet.getResources().get(0).getContents().stream()
+                .filter(Binding.class::isInstance)
+                .map(Binding.class::cast)
+                .filter(b -> b.getRole() == BindingRole.GETTER)
+                .map(b -> b.getTypeName().getNamespace() + "::" + b.getTypeName().getName() + "#"
+                        + (b instanceof AttributeBinding ? ((AttributeBinding) b).getAttributeName() : ((ReferenceBinding) b).getReferenceName()))
+                .collect(Collectors.toSet());
+    }
+
+    private static Map<AttributeBinding, Expression> getAttributeGetterExpressions(final ResourceSet resourceSet) {
+        final Map<AttributeBinding, Expression> expressions = new LinkedHashMap<>();
+        resourceSet.getResources().get(0).getContents().stream()
+                .filter(AttributeBinding.class::isInstance)
+                .map(AttributeBinding.class::cast)
+                .filter(b -> b.getRole() == BindingRole.GETTER)
+                .forEach(b -> expressions.put(b, b.getExpression()));
+        return expressions;
+    }
+
+    @Test
+    void testExpressionCache(@TempDir final File cacheDirectory) throws Exception {
+        final AsmJqlExtractor extractor = new AsmJqlExtractor(asmModel.getResourceSet(), measureModel.getResourceSet(),
+                URI.createURI("urn:test-cache.judo-meta-expression"));
+        extractor.setCacheDirectory(cacheDirectory);
+        final ResourceSet extractedResourceSet = extractor.extractExpressions();
+        assertEquals(1, cacheDirectory.listFiles().length);
+
+        // marker stored in cache only, it is returned if expressions are loaded from cache instead of extracting them
+        final File cacheFile = cacheDirectory.listFiles()[0];
+        final TypeName marker = newTypeNameBuilder().withNamespace("cache").withName("Marker").build();
+        extractedResourceSet.getResources().get(0).getContents().add(marker);
+        try (OutputStream outputStream = new FileOutputStream(cacheFile)) {
+            ExpressionModelBinarySupport.saveExpressionBinary(extractedResourceSet.getResources().get(0), outputStream);
+        }
+
+        final AsmJqlExtractor cachedExtractor = new AsmJqlExtractor(asmModel.getResourceSet(), measureModel.getResourceSet(),
+                URI.createURI("urn:test-cached.judo-meta-expression"));
+        cachedExtractor.setCacheDirectory(cacheDirectory);
+        expressionResourceSet = cachedExtractor.extractExpressions();
+        assertTrue(EcoreUtil.equals(extractedResourceSet.getResources().get(0).getContents(),
+                expressionResourceSet.getResources().get(0).getContents()));
+        assertTrue(containsMarker(expressionResourceSet));
+        assertEquals(1, cacheDirectory.listFiles().length);
+
+        final EClass order = (EClass) asmUtils.resolve("demo.entities.Order").get();
+        final EAttribute shipperName = order.getEAttributes().stream().filter(a -> "shipperName".equals(a.getName())).findAny().get();
+        AsmUtils.getExtensionAnnotationByName(shipperName, "expression", false).get().getDetails().put("getter", "self.shipper.phone");
+
+        final AsmJqlExtractor changedExtractor = new AsmJqlExtractor(asmModel.getResourceSet(), measureModel.getResourceSet(),
+                URI.createURI("urn:test-changed.judo-meta-expression"));
+        changedExtractor.setCacheDirectory(cacheDirectory);
+        assertFalse(containsMarker(changedExtractor.extractExpressions()));
+        assertEquals(2, cacheDirectory.listFiles().length);
+    }
+
+    private static boolean containsMarker(final ResourceSet resourceSet) {
+        return resourceSet.getResources().get(0).getContents().stream()
+                .filter(TypeName.class::isInstance)
+                .map(TypeName.class::cast)
+                .anyMatch(t -> "cache".equals(t.getNamespace()) && "Marker".equals(t.getName()));
+    }
 }
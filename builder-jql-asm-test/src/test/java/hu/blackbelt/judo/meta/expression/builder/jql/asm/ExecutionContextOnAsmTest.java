@@ -30,6 +30,7 @@ import hu.blackbelt.judo.meta.measure.runtime.MeasureModel;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.*;
+import org.junit.jupiter.api.BeforeEach;
 
 import java.math.BigDecimal;
 import java.util.Collections;
@@ -51,6 +52,7 @@ public class ExecutionContextOnAsmTest {
     protected EDataType doubleType;
     protected EDataType integerType;
 
+    @BeforeEach
     void setUp() throws Exception {
         asmModel = buildAsmModel()
                 .uri(URI.createURI("urn:asm.judo-meta-asm"))
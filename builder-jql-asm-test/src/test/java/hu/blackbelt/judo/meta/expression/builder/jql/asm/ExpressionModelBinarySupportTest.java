@@ -0,0 +1,62 @@
+package hu.blackbelt.judo.meta.expression.builder.jql.asm;
+
+/*-
+ * #%L
+ * JUDO :: Expression :: ASM Adapter Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.expression.support.ExpressionModelResourceSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+public class ExpressionModelBinarySupportTest extends ExecutionContextOnAsmTest {
+
+    @Test
+    void testSaveAndLoad() throws Exception {
+        final ResourceSet expressionResourceSet = new AsmJqlExtractor(asmModel.getResourceSet(), measureModel.getResourceSet(),
+                URI.createURI("urn:test.judo-meta-expression")).extractExpressions();
+        final Resource expressionResource = expressionResourceSet.getResources().get(0);
+        assertFalse(expressionResource.getContents().isEmpty());
+
+        final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        ExpressionModelBinarySupport.saveExpressionBinary(expressionResource, binary);
+        final ByteArrayOutputStream xmi = new ByteArrayOutputStream();
+        expressionResource.save(xmi, Collections.emptyMap());
+        log.info("Size of expression model: {} bytes (binary), {} bytes (XMI)", binary.size(), xmi.size());
+        assertTrue(binary.size() < xmi.size());
+
+        final Resource loadedResource = ExpressionModelResourceSupport.expressionModelResourceSupportBuilder()
+                .uri(URI.createURI("urn:test-loaded.judo-meta-expression"))
+                .build().getResource();
+        ExpressionModelBinarySupport.loadExpressionBinary(loadedResource, new ByteArrayInputStream(binary.toByteArray()));
+
+        assertTrue(EcoreUtil.equals(expressionResource.getContents(), loadedResource.getContents()));
+    }
+}
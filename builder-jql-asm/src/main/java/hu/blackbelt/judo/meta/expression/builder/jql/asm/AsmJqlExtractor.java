@@ -20,18 +20,65 @@ package hu.blackbelt.judo.meta.expression.builder.jql.asm;
  * #L%
  */
 
+import hu.blackbelt.judo.meta.asm.runtime.AsmUtils;
+import hu.blackbelt.judo.meta.expression.Expression;
+import hu.blackbelt.judo.meta.expression.TypeName;
 import hu.blackbelt.judo.meta.expression.adapters.asm.AsmModelAdapter;
+import hu.blackbelt.judo.meta.expression.adapters.asm.ConcurrentAsmModelAdapter;
+import hu.blackbelt.judo.meta.expression.binding.AttributeBinding;
+import hu.blackbelt.judo.meta.expression.binding.Binding;
+import hu.blackbelt.judo.meta.expression.binding.BindingRole;
+import hu.blackbelt.judo.meta.expression.binding.ReferenceBinding;
 import hu.blackbelt.judo.meta.expression.builder.jql.AdaptableJqlExtractor;
+import hu.blackbelt.judo.meta.expression.builder.jql.CreateExpressionArguments;
+import hu.blackbelt.judo.meta.expression.builder.jql.JqlExpressionBuilder;
 import hu.blackbelt.judo.meta.expression.builder.jql.JqlExpressionBuilderConfig;
 import hu.blackbelt.judo.meta.expression.support.ExpressionModelResourceSupport;
+import hu.blackbelt.judo.meta.measure.Measure;
+import hu.blackbelt.judo.meta.measure.Unit;
 import hu.blackbelt.judo.meta.measure.support.MeasureModelResourceSupport;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.*;
+import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.slf4j.Logger;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 public class AsmJqlExtractor extends AdaptableJqlExtractor {
 
+    private static final Logger log = org.slf4j.LoggerFactory.getLogger(AsmJqlExtractor.class);
+
+    private static final String CACHE_FORMAT_VERSION = "3";
+    private static final String CACHE_FILE_EXTENSION = ".expression.bin";
+    private static final String EXPRESSION_ANNOTATION_NAME = "expression";
+    private static final String GETTER_DETAIL = "getter";
+
+    private final ResourceSet asmResourceSet;
+    private final ResourceSet measureResourceSet;
+    private final ResourceSet expressionResourceSet;
+    private final AsmModelAdapter modelAdapter;
+    private final JqlExpressionBuilderConfig builderConfig;
+
+    private int parallelism;
+    private ConcurrentAsmModelAdapter concurrentModelAdapter;
+    private File cacheDirectory;
+    private boolean incremental;
+    private AsmModelFingerprint extractedFingerprint;
+    private ResourceSet extractedResourceSet;
+
     public AsmJqlExtractor(final ResourceSet asmResourceSet, final ResourceSet measureResourceSet, final ResourceSet expressionResourceSet, JqlExpressionBuilderConfig builderConfig) {
-        super(asmResourceSet, measureResourceSet, expressionResourceSet, new AsmModelAdapter(asmResourceSet, measureResourceSet != null ? measureResourceSet : MeasureModelResourceSupport.createMeasureResourceSet()), builderConfig);
+        this(asmResourceSet, measureResourceSet, measureResourceSet != null ? measureResourceSet : MeasureModelResourceSupport.createMeasureResourceSet(), expressionResourceSet, builderConfig);
     }
 
     public AsmJqlExtractor(final ResourceSet asmResourceSet, final ResourceSet measureResourceSet, final ResourceSet expressionResourceSet) {
@@ -48,4 +95,353 @@ public class AsmJqlExtractor extends AdaptableJqlExtractor {
                 .build().getResourceSet(), builderConfig);
     }
 
+    private AsmJqlExtractor(final ResourceSet asmResourceSet, final ResourceSet measureResourceSet, final ResourceSet adaptedMeasureResourceSet, final ResourceSet expressionResourceSet, JqlExpressionBuilderConfig builderConfig) {
+        this(asmResourceSet, measureResourceSet, adaptedMeasureResourceSet, expressionResourceSet, new AsmModelAdapter(asmResourceSet, adaptedMeasureResourceSet), builderConfig);
+    }
+
+    private AsmJqlExtractor(final ResourceSet asmResourceSet, final ResourceSet measureResourceSet, final ResourceSet adaptedMeasureResourceSet, final ResourceSet expressionResourceSet, final AsmModelAdapter modelAdapter, JqlExpressionBuilderConfig builderConfig) {
+        super(asmResourceSet, measureResourceSet, expressionResourceSet, modelAdapter, builderConfig);
+        this.asmResourceSet = asmResourceSet;
+        this.measureResourceSet = adaptedMeasureResourceSet;
+        this.expressionResourceSet = expressionResourceSet;
+        this.modelAdapter = modelAdapter;
+        this.builderConfig = builderConfig;
+    }
+
+    /**
+     * Enable or disable incremental extraction. In incremental mode expressions are extracted again only if JQL
+     * expressions or model elements they depend on (classifiers, features, operations, measures and units) are changed
+     * since the last extraction, otherwise the previously extracted expressions are returned. If only getter JQL
+     * expressions of features are changed, getter expressions of these features are rebuilt only, other changes
+     * require extracting all expressions again.
+     *
+     * @param incremental <code>true</code> to skip extraction of unchanged models
+     */
+    public void setIncremental(final boolean incremental) {
+        this.incremental = incremental;
+        if (!incremental) {
+            extractedFingerprint = null;
+            extractedResourceSet = null;
+        }
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Set number of worker threads building expressions per type. By default (<code>0</code>) expressions are
+     * extracted by {@link AdaptableJqlExtractor}. With positive parallelism getter expressions of (derived) attributes
+     * and references of entity and transfer object types are built per type: each type is processed by a worker with
+     * its own expression builder into a temporary resource, workers share a {@link ConcurrentAsmModelAdapter}. Results
+     * are merged into the expression resource ordered by fully qualified names of types, so the extracted model does not
+     * depend on the number of workers nor on scheduling.
+     *
+     * <p>Per type building covers getter expressions only, models having other kinds of expressions (setters, defaults,
+     * ranges, filters) or actor types are extracted by {@link AdaptableJqlExtractor}.</p>
+     *
+     * @param parallelism number of worker threads, <code>0</code> to use extraction of {@link AdaptableJqlExtractor}
+     */
+    public void setParallelism(final int parallelism) {
+        if (parallelism < 0) {
+            throw new IllegalArgumentException("Parallelism must not be negative");
+        }
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Set directory of persistent expression cache. Extracted expressions are stored in cache directory in binary
+     * format (see {@link ExpressionModelBinarySupport}), key of cached expressions is the hash of ASM and measure
+     * models and options of JQL expression builder configuration (cache is not used with subclasses of configuration
+     * that might have other options). If cached expressions of the same models exist, they are loaded
+     * instead of extracting expressions (if expression resource is empty).
+     *
+     * @param cacheDirectory cache directory, <code>null</code> to disable cache
+     */
+    public void setCacheDirectory(final File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    public File getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    @Override
+    public ResourceSet extractExpressions() {
+        if (!incremental && cacheDirectory == null) {
+            return extract();
+        }
+
+        final AsmModelFingerprint fingerprint = AsmModelFingerprint.of(modelAdapter);
+        if (incremental && extractedFingerprint != null) {
+            final Set<String> changes = extractedFingerprint.getDifferences(fingerprint);
+            if (changes.isEmpty()) {
+                log.debug("Model is not changed since last extraction, skipping extraction of expressions");
+                return extractedResourceSet;
+            }
+            if (rebuildGetterExpressions(fingerprint)) {
+                log.debug("Getter expressions of changed features are rebuilt: {}", changes);
+                extractedFingerprint = fingerprint;
+                return extractedResourceSet;
+            }
+            log.debug("Extracting all expressions, changed model elements: {}", changes);
+            getExpressionResource().getContents().clear();
+        }
+
+        final ResourceSet resourceSet = cacheDirectory != null ? extractWithCache(fingerprint) : extract();
+        if (incremental) {
+            extractedFingerprint = fingerprint;
+            extractedResourceSet = resourceSet;
+        }
+        return resourceSet;
+    }
+
+    /**
+     * Rebuild getter expressions of features of which only getter JQL expressions are changed since the last
+     * extraction. Bindings of these features (including bindings of subtypes) and their expressions are removed and
+     * created again, other expressions are kept.
+     *
+     * @param fingerprint fingerprint of current model
+     * @return <code>true</code> if expressions are rebuilt, <code>false</code> if all expressions must be extracted
+     */
+    private boolean rebuildGetterExpressions(final AsmModelFingerprint fingerprint) {
+        if (!extractedFingerprint.getStructuralDifferences(fingerprint).isEmpty()) {
+            // other expressions might depend on changed model elements
+            return false;
+        }
+        final Map<String, Set<String>> expressionChanges = extractedFingerprint.getExpressionDifferences(fingerprint);
+        if (expressionChanges.values().stream().anyMatch(details -> !details.equals(Collections.singleton(GETTER_DETAIL)))) {
+            return false;
+        }
+
+        final Resource resource = getExpressionResource();
+        final Map<Binding, EClass> rebuiltBindings = new LinkedHashMap<>();
+        for (final String featureKey : expressionChanges.keySet()) {
+            final int separator = featureKey.lastIndexOf('#');
+            final String featureName = featureKey.substring(separator + 1);
+            final Optional<EClass> declaringType = modelAdapter.getAsmUtils().resolve(featureKey.substring(0, separator))
+                    .filter(EClass.class::isInstance)
+                    .map(EClass.class::cast);
+            if (!declaringType.isPresent()) {
+                return false;
+            }
+
+            final Map<String, EClass> typesByName = new HashMap<>();
+            modelAdapter.getAsmUtils().all(EClass.class)
+                    .filter(c -> c == declaringType.get() || c.getEAllSuperTypes().contains(declaringType.get()))
+                    .forEach(c -> modelAdapter.buildTypeName(c).ifPresent(t -> typesByName.put(getTypeName(t), c)));
+            final List<Binding> bindings = resource.getContents().stream()
+                    .filter(Binding.class::isInstance)
+                    .map(Binding.class::cast)
+                    .filter(b -> b.getRole() == BindingRole.GETTER && featureName.equals(getFeatureName(b))
+                            && b.getTypeName() != null && typesByName.containsKey(getTypeName(b.getTypeName())))
+                    .collect(Collectors.toList());
+            if (bindings.isEmpty() && AsmUtils.getExtensionAnnotationCustomValue(declaringType.get().getEStructuralFeature(featureName),
+                    EXPRESSION_ANNOTATION_NAME, GETTER_DETAIL, false).isPresent()) {
+                // getter is added, types getting new bindings are selected by extraction
+                return false;
+            }
+            bindings.forEach(b -> rebuiltBindings.put(b, typesByName.get(getTypeName(b.getTypeName()))));
+        }
+
+        final JqlExpressionBuilder<EClassifier, EDataType, EEnum, EClass, EAttribute, EReference, EClass, EAttribute, EReference, EClassifier, Measure, Unit> expressionBuilder =
+                new JqlExpressionBuilder<>(modelAdapter, resource, builderConfig);
+        rebuiltBindings.forEach((binding, type) -> {
+            final String featureName = getFeatureName(binding);
+            if (binding.getExpression() != null) {
+                EcoreUtil.remove(binding.getExpression());
+            }
+            EcoreUtil.remove(binding);
+
+            final EStructuralFeature feature = type.getEStructuralFeature(featureName);
+            AsmUtils.getExtensionAnnotationCustomValue(feature, EXPRESSION_ANNOTATION_NAME, GETTER_DETAIL, false).ifPresent(jql -> {
+                final Expression expression = expressionBuilder.createExpression(CreateExpressionArguments.<EClass, EClass, EClassifier>builder()
+                        .withClazz(type)
+                        .withJqlExpressionAsString(jql)
+                        .build());
+                expressionBuilder.storeExpression(expression);
+                expressionBuilder.createGetterBinding(type, expression, featureName,
+                        binding instanceof ReferenceBinding ? JqlExpressionBuilder.BindingType.RELATION : JqlExpressionBuilder.BindingType.ATTRIBUTE);
+            });
+        });
+        return true;
+    }
+
+    private static String getFeatureName(final Binding binding) {
+        if (binding instanceof AttributeBinding) {
+            return ((AttributeBinding) binding).getAttributeName();
+        } else if (binding instanceof ReferenceBinding) {
+            return ((ReferenceBinding) binding).getReferenceName();
+        } else {
+            return null;
+        }
+    }
+
+    private static String getTypeName(final TypeName typeName) {
+        return typeName.getNamespace() + "::" + typeName.getName();
+    }
+
+    private Resource getExpressionResource() {
+        return expressionResourceSet.getResources().get(0);
+    }
+
+    private ResourceSet extractWithCache(final AsmModelFingerprint fingerprint) {
+        final Resource resource = !expressionResourceSet.getResources().isEmpty() ? expressionResourceSet.getResources().get(0) : null;
+        if (resource == null || !resource.getContents().isEmpty()) {
+            // cache contains complete expression models only
+            return extract();
+        }
+        if (builderConfig.getClass() != JqlExpressionBuilderConfig.class) {
+            log.debug("Expression cache is not used, options of {} are not part of cache key", builderConfig.getClass().getName());
+            return extract();
+        }
+
+        final File cacheFile = new File(cacheDirectory, fingerprint.getDigest(getConfigurationKey()) + CACHE_FILE_EXTENSION);
+        if (cacheFile.isFile() && loadCachedExpressions(resource, cacheFile)) {
+            log.debug("Expressions loaded from cache: {}", cacheFile);
+            return expressionResourceSet;
+        }
+
+        final ResourceSet resourceSet = extract();
+        storeCachedExpressions(resource, cacheFile);
+        return resourceSet;
+    }
+
+    private boolean loadCachedExpressions(final Resource resource, final File cacheFile) {
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(cacheFile))) {
+            ExpressionModelBinarySupport.loadExpressionBinary(resource, inputStream);
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Failed to load cached expressions: " + cacheFile, ex);
+            resource.getContents().clear();
+            return false;
+        }
+    }
+
+    private void storeCachedExpressions(final Resource resource, final File cacheFile) {
+        Path temporaryFile = null;
+        try {
+            Files.createDirectories(cacheDirectory.toPath());
+            temporaryFile = Files.createTempFile(cacheDirectory.toPath(), cacheFile.getName(), ".tmp");
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(temporaryFile))) {
+                ExpressionModelBinarySupport.saveExpressionBinary(resource, outputStream);
+            }
+            Files.move(temporaryFile, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            log.warn("Failed to store expressions in cache: " + cacheFile, ex);
+            if (temporaryFile != null) {
+                temporaryFile.toFile().delete();
+            }
+        }
+    }
+
+    private String getConfigurationKey() {
+        // options of JQL expression builder configuration are part of cache key
+        return CACHE_FORMAT_VERSION + ";resolveOnlyCurrentLambdaScope=" + builderConfig.isResolveOnlyCurrentLambdaScope()
+                // order of expressions built per type is different
+                + ";perType=" + (parallelism > 0 && isExtractablePerType());
+    }
+
+    private ResourceSet extract() {
+        if (parallelism > 0 && isExtractablePerType()) {
+            extractPerType();
+            return expressionResourceSet;
+        }
+        return super.extractExpressions();
+    }
+
+    private boolean isExtractablePerType() {
+        final AsmUtils asmUtils = modelAdapter.getAsmUtils();
+        return modelAdapter.getAllActorTypes().isEmpty()
+                && asmUtils.all(EClass.class).noneMatch(c -> modelAdapter.getFilter(c).isPresent())
+                && asmUtils.all(EAttribute.class).noneMatch(a -> modelAdapter.getAttributeSetter(a).isPresent()
+                        || modelAdapter.getAttributeDefault(a).isPresent())
+                && asmUtils.all(EReference.class).noneMatch(r -> modelAdapter.getReferenceSetter(r).isPresent()
+                        || modelAdapter.getReferenceDefault(r).isPresent() || modelAdapter.getReferenceRange(r).isPresent());
+    }
+
+    private void extractPerType() {
+        final Set<EClass> typeSet = new LinkedHashSet<>(modelAdapter.getAllEntityTypes());
+        typeSet.addAll(modelAdapter.getAllTransferObjectTypes());
+        final List<EClass> types = typeSet.stream()
+                .sorted(Comparator.comparing(AsmUtils::getClassifierFQName))
+                .collect(Collectors.toList());
+        if (types.isEmpty()) {
+            return;
+        }
+
+        if (concurrentModelAdapter == null) {
+            concurrentModelAdapter = new ConcurrentAsmModelAdapter(asmResourceSet, measureResourceSet);
+        } else {
+            // models may have been changed since previous extraction
+            concurrentModelAdapter.prepare();
+        }
+        log.debug("Extracting expressions of {} types on {} threads", types.size(), parallelism);
+
+        final Resource resource = getExpressionResource();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, types.size()));
+        try {
+            final List<Future<Resource>> futures = new ArrayList<>();
+            for (int i = 0; i < types.size(); i++) {
+                final EClass type = types.get(i);
+                final URI uri = URI.createURI(resource.getURI() + "-" + i);
+                futures.add(executor.submit(() -> extractType(type, uri)));
+            }
+            // merged in order of types, independently of completion order
+            for (final Future<Resource> future : futures) {
+                try {
+                    resource.getContents().addAll(future.get().getContents());
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) ex.getCause();
+                    } else {
+                        throw new IllegalStateException("Failed to extract expressions", ex.getCause());
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Extraction of expressions interrupted", ex);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private Resource extractType(final EClass type, final URI uri) {
+        final Resource resource = ExpressionModelResourceSupport.expressionModelResourceSupportBuilder()
+                .uri(uri)
+                .build().getResourceSet().getResources().get(0);
+        final JqlExpressionBuilder<EClassifier, EDataType, EEnum, EClass, EAttribute, EReference, EClass, EAttribute, EReference, EClassifier, Measure, Unit> expressionBuilder =
+                new JqlExpressionBuilder<>(concurrentModelAdapter, resource, builderConfig);
+        final boolean transferObjectType = concurrentModelAdapter.getAllTransferObjectTypes().contains(type);
+
+        for (final EAttribute attribute : type.getEAllAttributes()) {
+            final Optional<String> getter = transferObjectType
+                    ? Optional.of(attribute).filter(concurrentModelAdapter::isDerivedTransferAttribute).flatMap(concurrentModelAdapter::getTransferAttributeGetter)
+                    : Optional.of(attribute).filter(concurrentModelAdapter::isDerivedAttribute).flatMap(concurrentModelAdapter::getAttributeGetter);
+            getter.ifPresent(jql -> buildGetter(expressionBuilder, type, attribute.getName(), jql, JqlExpressionBuilder.BindingType.ATTRIBUTE));
+        }
+        for (final EReference reference : type.getEAllReferences()) {
+            final Optional<String> getter = transferObjectType
+                    ? Optional.of(reference).filter(concurrentModelAdapter::isDerivedTransferRelation).flatMap(concurrentModelAdapter::getTransferRelationGetter)
+                    : Optional.of(reference).filter(concurrentModelAdapter::isDerivedReference).flatMap(concurrentModelAdapter::getReferenceGetter);
+            getter.ifPresent(jql -> buildGetter(expressionBuilder, type, reference.getName(), jql, JqlExpressionBuilder.BindingType.RELATION));
+        }
+        return resource;
+    }
+
+    private static void buildGetter(final JqlExpressionBuilder<EClassifier, EDataType, EEnum, EClass, EAttribute, EReference, EClass, EAttribute, EReference, EClassifier, Measure, Unit> expressionBuilder,
+                                    final EClass type, final String featureName, final String jql, final JqlExpressionBuilder.BindingType bindingType) {
+        final Expression expression = expressionBuilder.createExpression(CreateExpressionArguments.<EClass, EClass, EClassifier>builder()
+                .withClazz(type)
+                .withJqlExpressionAsString(jql)
+                .build());
+        expressionBuilder.storeExpression(expression);
+        expressionBuilder.createGetterBinding(type, expression, featureName, bindingType);
+    }
+
 }
@@ -0,0 +1,217 @@
+package hu.blackbelt.judo.meta.expression.builder.jql.asm;
+
+/*-
+ * #%L
+ * JUDO :: Expression :: ASM Adapter Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.asm.runtime.AsmUtils;
+import hu.blackbelt.judo.meta.expression.adapters.asm.AsmModelAdapter;
+import hu.blackbelt.judo.meta.measure.DurationUnit;
+import hu.blackbelt.judo.meta.measure.Measure;
+import hu.blackbelt.judo.meta.measure.Unit;
+import org.eclipse.emf.ecore.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Fingerprint of ASM and measure model elements that expressions are extracted from or depend on.
+ *
+ * <p>Each classifier, structural feature, operation and measure has an entry containing its type, multiplicity,
+ * supertypes, annotations (including JQL expressions) and units. Two fingerprints are equal if extracted expressions
+ * would be the same.</p>
+ *
+ * <p>Expression annotations of structural features are kept apart from their structure, so changes of JQL expressions
+ * of features can be told apart from changes that other expressions might depend on.</p>
+ */
+class AsmModelFingerprint {
+
+    private static final String EXPRESSION_ANNOTATION_NAME = "expression";
+
+    private final Map<String, List<Object>> entries;
+    private final Map<String, Map<String, String>> featureExpressions;
+
+    private AsmModelFingerprint(final Map<String, List<Object>> entries, final Map<String, Map<String, String>> featureExpressions) {
+        this.entries = entries;
+        this.featureExpressions = featureExpressions;
+    }
+
+    static AsmModelFingerprint of(final AsmModelAdapter modelAdapter) {
+        final Map<String, List<Object>> entries = new TreeMap<>();
+        final Map<String, Map<String, String>> featureExpressions = new TreeMap<>();
+
+        modelAdapter.getAsmUtils().all(EClassifier.class).forEach(classifier -> {
+            final String classifierName = AsmUtils.getClassifierFQName(classifier);
+            if (classifier instanceof EClass) {
+                final EClass clazz = (EClass) classifier;
+                entries.put(classifierName, Arrays.asList(
+                        clazz.getESuperTypes().stream().map(AsmUtils::getClassifierFQName).collect(toList()),
+                        getAnnotations(clazz)));
+                for (final EStructuralFeature feature : clazz.getEStructuralFeatures()) {
+                    final String featureKey = classifierName + "#" + feature.getName();
+                    final Optional<EAnnotation> expressionAnnotation = AsmUtils.getExtensionAnnotationByName(feature, EXPRESSION_ANNOTATION_NAME, false);
+                    entries.put(featureKey, Arrays.asList(
+                            getTypeName(feature.getEType()), feature.getLowerBound(), feature.getUpperBound(),
+                            feature.isDerived(), feature instanceof EReference && ((EReference) feature).isContainment(),
+                            getAnnotations(feature, expressionAnnotation.orElse(null))));
+                    expressionAnnotation.ifPresent(a -> featureExpressions.put(featureKey, new LinkedHashMap<>(a.getDetails().map())));
+                }
+                for (final EOperation operation : clazz.getEOperations()) {
+                    entries.put(classifierName + "#" + operation.getName() + "()", Arrays.asList(
+                            getTypeName(operation.getEType()), operation.getLowerBound(), operation.getUpperBound(),
+                            operation.getEParameters().stream()
+                                    .map(p -> Arrays.asList(p.getName(), getTypeName(p.getEType()), getAnnotations(p)))
+                                    .collect(toList()),
+                            getAnnotations(operation)));
+                }
+            } else if (classifier instanceof EEnum) {
+                entries.put(classifierName, Arrays.asList(
+                        ((EEnum) classifier).getELiterals().stream()
+                                .map(l -> Arrays.asList(l.getName(), l.getLiteral(), l.getValue()))
+                                .collect(toList()),
+                        getAnnotations(classifier)));
+            } else {
+                entries.put(classifierName, Arrays.asList(classifier.getInstanceClassName(), getAnnotations(classifier)));
+            }
+        });
+
+        for (final Measure measure : modelAdapter.getAllMeasures()) {
+            entries.put(measure.getNamespace() + "::" + measure.getName(), Arrays.asList(
+                    measure.eClass().getName(),
+                    modelAdapter.getUnits(measure).stream().map(AsmModelFingerprint::getUnitEntry).collect(toList())));
+        }
+
+        return new AsmModelFingerprint(entries, featureExpressions);
+    }
+
+    /**
+     * Get keys of entries that are different in two fingerprints (added, removed or changed elements, including
+     * changes of JQL expressions).
+     *
+     * @param other other fingerprint
+     * @return keys of different entries
+     */
+    Set<String> getDifferences(final AsmModelFingerprint other) {
+        final Set<String> differences = new TreeSet<>(getDifferences(entries, other.entries));
+        differences.addAll(getExpressionDifferences(other).keySet());
+        return differences;
+    }
+
+    /**
+     * Get keys of entries that are different in two fingerprints, ignoring JQL expressions of structural features.
+     * Other expressions might depend on these elements.
+     *
+     * @param other other fingerprint
+     * @return keys of different entries
+     */
+    Set<String> getStructuralDifferences(final AsmModelFingerprint other) {
+        return getDifferences(entries, other.entries);
+    }
+
+    /**
+     * Get structural features of which JQL expressions are different in two fingerprints.
+     *
+     * @param other other fingerprint
+     * @return names of changed expression annotation details (ie. <code>getter</code>) by keys of features
+     */
+    Map<String, Set<String>> getExpressionDifferences(final AsmModelFingerprint other) {
+        final Map<String, Set<String>> differences = new TreeMap<>();
+        for (final String key : getDifferences(featureExpressions, other.featureExpressions)) {
+            final Map<String, String> details = featureExpressions.getOrDefault(key, Collections.emptyMap());
+            final Map<String, String> otherDetails = other.featureExpressions.getOrDefault(key, Collections.emptyMap());
+            differences.put(key, new TreeSet<>(getDifferences(details, otherDetails)));
+        }
+        return differences;
+    }
+
+    /**
+     * Get SHA-256 digest of fingerprint, it is stable across JVM instances.
+     *
+     * @param salt additional content of digest (ie. configuration)
+     * @return digest as hexadecimal string
+     */
+    String getDigest(final String salt) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 digest is not supported", ex);
+        }
+        updateDigest(digest, entries);
+        updateDigest(digest, featureExpressions);
+        digest.update(String.valueOf(salt).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof AsmModelFingerprint && entries.equals(((AsmModelFingerprint) o).entries)
+                && featureExpressions.equals(((AsmModelFingerprint) o).featureExpressions);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(entries, featureExpressions);
+    }
+
+    private static void updateDigest(final MessageDigest digest, final Map<String, ?> entries) {
+        entries.forEach((key, value) -> {
+            digest.update(key.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '=');
+            digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        });
+    }
+
+    private static <V> Set<String> getDifferences(final Map<String, V> entries, final Map<String, V> otherEntries) {
+        final Set<String> differences = new TreeSet<>();
+        entries.forEach((key, value) -> {
+            if (!Objects.equals(value, otherEntries.get(key))) {
+                differences.add(key);
+            }
+        });
+        otherEntries.keySet().stream().filter(key -> !entries.containsKey(key)).forEach(differences::add);
+        return differences;
+    }
+
+    private static List<Object> getUnitEntry(final Unit unit) {
+        return Arrays.asList(unit.eClass().getName(), unit.getName(), unit.getSymbol(),
+                unit.getRateDividend(), unit.getRateDivisor(),
+                unit instanceof DurationUnit ? ((DurationUnit) unit).getType() : null);
+    }
+
+    private static String getTypeName(final EClassifier type) {
+        return type != null ? AsmUtils.getClassifierFQName(type) : null;
+    }
+
+    private static List<Object> getAnnotations(final EModelElement element) {
+        return getAnnotations(element, null);
+    }
+
+    private static List<Object> getAnnotations(final EModelElement element, final EAnnotation excluded) {
+        return element.getEAnnotations().stream()
+                .filter(a -> a != excluded)
+                .map(a -> Arrays.<Object>asList(a.getSource(), new LinkedHashMap<>(a.getDetails().map())))
+                .collect(toList());
+    }
+}
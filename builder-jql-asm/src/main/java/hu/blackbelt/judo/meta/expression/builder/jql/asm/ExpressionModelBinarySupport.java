@@ -0,0 +1,63 @@
+package hu.blackbelt.judo.meta.expression.builder.jql.asm;
+
+/*-
+ * #%L
+ * JUDO :: Expression :: ASM Adapter Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.expression.adapters.asm.ModelBinarySupport;
+import org.eclipse.emf.ecore.resource.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compact binary serialization of expression models (as alternative of XMI).
+ *
+ * <p>Expression models are written by {@link ModelBinarySupport}, strings (type names, attribute names, namespaces,
+ * etc.) are interned: each distinct string is written once and referred by index afterwards.</p>
+ */
+public final class ExpressionModelBinarySupport {
+
+    private ExpressionModelBinarySupport() {
+    }
+
+    /**
+     * Write contents of an expression resource in binary format.
+     *
+     * @param resource     expression resource
+     * @param outputStream output stream (not closed)
+     * @throws IOException if writing failed
+     */
+    public static void saveExpressionBinary(final Resource resource, final OutputStream outputStream) throws IOException {
+        ModelBinarySupport.save(resource, outputStream);
+    }
+
+    /**
+     * Read contents of an expression resource in binary format. Loaded elements are added to contents of resource,
+     * packages are resolved by package registry of resource set of resource.
+     *
+     * @param resource    expression resource
+     * @param inputStream input stream (not closed)
+     * @throws IOException if reading failed
+     */
+    public static void loadExpressionBinary(final Resource resource, final InputStream inputStream) throws IOException {
+        ModelBinarySupport.load(resource, inputStream);
+    }
+}